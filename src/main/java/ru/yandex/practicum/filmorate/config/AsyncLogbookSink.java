@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogFormatter;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sink для Logbook, который форматирует запись в потоке запроса, а пишет её в лог из отдельного потока.
+ * Записи копятся в ограниченной очереди и пишутся пачками; если очередь заполнена, запись отбрасывается.
+ */
+@Slf4j
+public class AsyncLogbookSink implements Sink, AutoCloseable {
+    private final HttpLogFormatter formatter;
+    private final HttpLogWriter writer;
+    private final BlockingQueue<Entry> queue;
+    private final int batchSize;
+    private final Counter dropped;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public AsyncLogbookSink(HttpLogFormatter formatter, HttpLogWriter writer, int capacity, int batchSize,
+                            MeterRegistry registry) {
+        this.formatter = formatter;
+        this.writer = writer;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.dropped = registry.counter("filmorate.logbook.dropped");
+        registry.gaugeCollectionSize("filmorate.logbook.queue.size", List.of(), queue);
+        this.worker = new Thread(this::drain, "logbook-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public boolean isActive() {
+        return writer.isActive();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request) throws IOException {
+        offer(new Entry(precorrelation, formatter.format(precorrelation, request)));
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+        offer(new Entry(correlation, formatter.format(correlation, response)));
+    }
+
+    public double getDropped() {
+        return dropped.count();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(Duration.ofSeconds(5).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Не дождались записи очереди логов при остановке, осталось записей: {}", queue.size());
+        }
+    }
+
+    private void offer(Entry entry) {
+        if (!queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            for (Entry entry : batch) {
+                try {
+                    if (entry.precorrelation() instanceof Correlation correlation) {
+                        writer.write(correlation, entry.line());
+                    } else {
+                        writer.write(entry.precorrelation(), entry.line());
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Не удалось записать запрос в лог", e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private record Entry(Precorrelation precorrelation, String line) {
+    }
+}
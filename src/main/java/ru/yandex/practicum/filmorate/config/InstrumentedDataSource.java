@@ -0,0 +1,174 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обёртка над DataSource, которая замеряет время каждого SQL-запроса и число изменённых строк.
+ * Запрос называется по методу хранилища, из которого он выполнен, например FilmDbStorage.findFilm.
+ * Имя определяется обходом стека при первом выполнении запроса с таким текстом и дальше берётся из кэша.
+ * Число прочитанных строк считает {@link InstrumentedJdbcTemplate}.
+ * Запросы дольше порога пишутся в лог вместе с параметрами.
+ */
+@Slf4j
+public class InstrumentedDataSource extends DelegatingDataSource {
+    private static final String STORAGE_PACKAGE = "ru.yandex.practicum.filmorate.storage";
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    private static final int MAX_QUERY_NAMES = 10_000;
+
+    private final MeterRegistry registry;
+    private final long slowQueryNanos;
+    private final Map<String, String> queryNames = new ConcurrentHashMap<>();
+
+    public InstrumentedDataSource(DataSource target, MeterRegistry registry, Duration slowQueryThreshold) {
+        super(target);
+        this.registry = registry;
+        this.slowQueryNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                return wrapStatement(PreparedStatement.class, statement, (String) args[0]);
+            }
+            if (result instanceof Statement statement && method.getName().equals("createStatement")) {
+                return wrapStatement(Statement.class, statement, null);
+            }
+            return result;
+        });
+    }
+
+    private <T extends Statement> T wrapStatement(Class<T> type, T statement, String preparedSql) {
+        String preparedQuery = preparedSql != null ? queryName(preparedSql) : null;
+        Map<Integer, Object> parameters = new TreeMap<>();
+        int[] batchSize = {0};
+        return proxy(type, statement, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batchSize[0]++;
+            }
+            if (!EXECUTE_METHODS.contains(name)) {
+                return invoke(statement, method, args);
+            }
+            String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 ? (String) args[0] : "";
+            String query = preparedQuery != null ? preparedQuery : queryName(sql);
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invoke(statement, method, args);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                Timer.builder("filmorate.jdbc.query")
+                        .tag("query", query)
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record(elapsed, TimeUnit.NANOSECONDS);
+                if (elapsed > slowQueryNanos) {
+                    log.warn("Медленный запрос {} ({} мс, пакет {}): {} параметры {}", query, elapsed / 1_000_000,
+                            batchSize[0], sql.replaceAll("\\s+", " "), parameters.values());
+                }
+            }
+            if (name.equals("executeBatch")) {
+                batchSize[0] = 0;
+                recordRows(query, Arrays.stream((int[]) result).filter(count -> count > 0).sum());
+            } else if (result instanceof Integer count) {
+                recordRows(query, count);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Записывает число строк, прочитанных запросом; вызывается из {@link InstrumentedJdbcTemplate}.
+     */
+    void recordReadRows(String sql, long rows) {
+        recordRows(queryName(sql), rows);
+    }
+
+    private void recordRows(String query, long rows) {
+        DistributionSummary.builder("filmorate.jdbc.rows")
+                .tag("query", query)
+                .register(registry)
+                .record(rows);
+    }
+
+    private String queryName(String sql) {
+        String name = queryNames.get(sql);
+        if (name == null) {
+            name = walkQueryName();
+            // текст запросов с IN-списками зависит от числа параметров, поэтому кэш ограничен
+            if (queryNames.size() < MAX_QUERY_NAMES) {
+                queryNames.putIfAbsent(sql, name);
+            }
+        }
+        return name;
+    }
+
+    private static String walkQueryName() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(STORAGE_PACKAGE)
+                        && !frame.getClassName().contains("$$"))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + frame.getMethodName())
+                .orElse("other"));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals("equals") && args != null && args.length == 1) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode") && args == null) {
+                return System.identityHashCode(proxy);
+            }
+            return handler.invoke(proxy, method, args);
+        });
+    }
+}
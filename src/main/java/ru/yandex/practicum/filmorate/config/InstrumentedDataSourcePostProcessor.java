@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Оборачивает DataSource приложения в {@link InstrumentedDataSource} и заменяет JdbcTemplate
+ * на {@link InstrumentedJdbcTemplate}, который считает прочитанные строки.
+ * Отключается свойством filmorate.jdbc.instrumentation.enabled=false.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.jdbc.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class InstrumentedDataSourcePostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<MeterRegistry> registry;
+    private final Duration slowQueryThreshold;
+
+    public InstrumentedDataSourcePostProcessor(ObjectProvider<MeterRegistry> registry,
+                                               @Value("${filmorate.jdbc.slow-query-threshold:PT0.2S}")
+                                               Duration slowQueryThreshold) {
+        this.registry = registry;
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+            return new InstrumentedDataSource(dataSource, registry.getObject(), slowQueryThreshold);
+        }
+        if (bean instanceof JdbcTemplate template && !(bean instanceof InstrumentedJdbcTemplate)
+                && template.getDataSource() instanceof InstrumentedDataSource dataSource) {
+            InstrumentedJdbcTemplate instrumented = new InstrumentedJdbcTemplate(dataSource);
+            instrumented.setFetchSize(template.getFetchSize());
+            instrumented.setMaxRows(template.getMaxRows());
+            instrumented.setQueryTimeout(template.getQueryTimeout());
+            instrumented.setIgnoreWarnings(template.isIgnoreWarnings());
+            return instrumented;
+        }
+        return bean;
+    }
+}
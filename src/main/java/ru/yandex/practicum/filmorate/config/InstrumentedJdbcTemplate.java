@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.lang.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * JdbcTemplate, который считает прочитанные строки и передаёт их число в {@link InstrumentedDataSource}.
+ * Для RowMapper и ResultSetExtractor берётся размер возвращённой коллекции, для RowCallbackHandler —
+ * число вызовов processRow. Все перегрузки query сходятся в переопределённых здесь методах.
+ */
+public class InstrumentedJdbcTemplate extends JdbcTemplate {
+    private final InstrumentedDataSource instrumentedDataSource;
+
+    public InstrumentedJdbcTemplate(InstrumentedDataSource dataSource) {
+        super(dataSource);
+        this.instrumentedDataSource = dataSource;
+    }
+
+    @Override
+    public <T> T query(String sql, ResultSetExtractor<T> rse) throws DataAccessException {
+        return recordRows(sql, super.query(sql, rse));
+    }
+
+    @Override
+    public <T> T query(PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss,
+                       ResultSetExtractor<T> rse) throws DataAccessException {
+        return recordRows(psc instanceof SqlProvider provider ? provider.getSql() : null, super.query(psc, pss, rse));
+    }
+
+    @Override
+    public void query(String sql, RowCallbackHandler rch) throws DataAccessException {
+        CountingRowCallbackHandler counting = new CountingRowCallbackHandler(rch);
+        super.query(sql, counting);
+        instrumentedDataSource.recordReadRows(sql, counting.rows);
+    }
+
+    @Override
+    public void query(String sql, @Nullable PreparedStatementSetter pss, RowCallbackHandler rch)
+            throws DataAccessException {
+        CountingRowCallbackHandler counting = new CountingRowCallbackHandler(rch);
+        super.query(sql, pss, counting);
+        instrumentedDataSource.recordReadRows(sql, counting.rows);
+    }
+
+    @Override
+    public void query(PreparedStatementCreator psc, RowCallbackHandler rch) throws DataAccessException {
+        CountingRowCallbackHandler counting = new CountingRowCallbackHandler(rch);
+        super.query(psc, counting);
+        instrumentedDataSource.recordReadRows(psc instanceof SqlProvider provider ? provider.getSql() : null,
+                counting.rows);
+    }
+
+    private <T> T recordRows(@Nullable String sql, T result) {
+        if (sql != null && result instanceof Collection<?> rows) {
+            instrumentedDataSource.recordReadRows(sql, rows.size());
+        }
+        return result;
+    }
+
+    private static final class CountingRowCallbackHandler implements RowCallbackHandler {
+        private final RowCallbackHandler delegate;
+        private long rows;
+
+        private CountingRowCallbackHandler(RowCallbackHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            rows++;
+            delegate.processRow(rs);
+        }
+    }
+}
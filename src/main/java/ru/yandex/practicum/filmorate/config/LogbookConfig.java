@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpLogFormatter;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+import org.zalando.logbook.attributes.AttributeExtractor;
+
+import java.util.List;
+
+/**
+ * Логирование запросов через Logbook с выборкой и записью в лог вне потока запроса.
+ */
+@Configuration
+public class LogbookConfig {
+
+    @Bean
+    public Strategy logbookStrategy(@Value("${filmorate.logbook.sample-rate:0.1}") double sampleRate,
+                                    @Value("${filmorate.logbook.no-body-paths:}") List<String> noBodyPaths,
+                                    @Value("${filmorate.logbook.max-request-body-size:65536}") long maxRequestBodySize) {
+        return new SamplingLogbookStrategy(sampleRate, noBodyPaths, maxRequestBodySize);
+    }
+
+    @Bean
+    public AttributeExtractor logbookAttributeExtractor() {
+        return SamplingLogbookStrategy.attributeExtractor();
+    }
+
+    @Bean(destroyMethod = "close")
+    public Sink logbookSink(HttpLogFormatter formatter, HttpLogWriter writer, MeterRegistry registry,
+                            @Value("${filmorate.logbook.queue-capacity:10000}") int capacity,
+                            @Value("${filmorate.logbook.batch-size:100}") int batchSize) {
+        return new AsyncLogbookSink(formatter, writer, capacity, batchSize, registry);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.util.AntPathMatcher;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.ForwardingHttpRequest;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+import org.zalando.logbook.attributes.AttributeExtractor;
+import org.zalando.logbook.attributes.HttpAttributes;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Стратегия Logbook, которая пишет в лог только часть запросов.
+ * Попадание в выборку решается при получении запроса, и тела буферизуются только у попавших в неё запросов.
+ * Ответы с ошибкой пишутся всегда, но вне выборки — без тел.
+ * Тела не буферизуются и для путей из списка, и для больших запросов.
+ * Элемент списка путей — шаблон Ant, перед которым можно указать HTTP-метод, например "GET /films".
+ */
+public class SamplingLogbookStrategy implements Strategy {
+    public static final String SAMPLED_ATTRIBUTE = "filmorate.logbook.sampled";
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private final double sampleRate;
+    private final List<String> noBodyPaths;
+    private final long maxRequestBodySize;
+
+    public SamplingLogbookStrategy(double sampleRate, List<String> noBodyPaths, long maxRequestBodySize) {
+        this.sampleRate = sampleRate;
+        this.noBodyPaths = noBodyPaths;
+        this.maxRequestBodySize = maxRequestBodySize;
+    }
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        boolean sampled = ThreadLocalRandom.current().nextDouble() < sampleRate;
+        boolean body = sampled && !skipBody(request) && contentLength(request) <= maxRequestBodySize;
+        return new SampledRequest(body ? request.withBody() : request.withoutBody(), sampled);
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+        // запрос пишется вместе с ответом, когда известно, попал ли он в выборку
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        return isSampled(request) && !skipBody(request) ? response.withBody() : response.withoutBody();
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response, Sink sink) throws IOException {
+        if (isSampled(request) || response.getStatus() >= 400) {
+            sink.writeBoth(correlation, request, response);
+        }
+    }
+
+    /**
+     * Logbook по умолчанию отбрасывает атрибуты запроса; этот экстрактор сохраняет решение о выборке,
+     * чтобы оно дошло до обработки и записи ответа.
+     */
+    public static AttributeExtractor attributeExtractor() {
+        return new AttributeExtractor() {
+            @Override
+            public HttpAttributes extract(HttpRequest request) {
+                return request.getAttributes();
+            }
+        };
+    }
+
+    private static boolean isSampled(HttpRequest request) {
+        return Boolean.TRUE.equals(request.getAttributes().get(SAMPLED_ATTRIBUTE));
+    }
+
+    private boolean skipBody(HttpRequest request) {
+        for (String pattern : noBodyPaths) {
+            int space = pattern.indexOf(' ');
+            String method = space > 0 ? pattern.substring(0, space) : null;
+            String path = space > 0 ? pattern.substring(space + 1) : pattern;
+            if ((method == null || method.equalsIgnoreCase(request.getMethod())) && MATCHER.match(path, request.getPath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long contentLength(HttpRequest request) {
+        String length = request.getHeaders().getFirst("Content-Length");
+        try {
+            return length == null ? 0 : Long.parseLong(length);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private record SampledRequest(HttpRequest delegate, boolean sampled) implements ForwardingHttpRequest {
+        @Override
+        public HttpAttributes getAttributes() {
+            return HttpAttributes.of(SAMPLED_ATTRIBUTE, sampled);
+        }
+    }
+}
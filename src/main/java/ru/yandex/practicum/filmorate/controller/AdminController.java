@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.service.ReferenceDataService;
+
+@RestController
+@RequestMapping("/admin")
+@Slf4j
+@RequiredArgsConstructor
+public class AdminController {
+    private final ReferenceDataService referenceDataService;
+
+    @PostMapping("/cache/reference/reload")
+    public ResponseEntity<?> reloadReferenceData() {
+        log.info("Запрошена перезагрузка справочников");
+        referenceDataService.reload();
+        return ResponseEntity.noContent().build();
+    }
+}
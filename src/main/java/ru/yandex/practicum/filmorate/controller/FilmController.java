@@ -1,15 +1,30 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.service.FilmImportService;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -20,10 +35,47 @@ public class FilmController {
 
     @Autowired
     private final FilmService filmService;
+    private final FilmImportService filmImportService;
+    private final ObjectMapper objectMapper;
+    private final ResourceVersions versions;
 
     @GetMapping
-    public ResponseEntity<List<Film>> allFilms() {
-        return ResponseEntity.ok(filmService.getAllFilms());
+    public ResponseEntity<MappingJacksonValue> allFilms(@RequestParam(required = false) Long afterId,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) String view,
+                                                        @RequestParam(required = false) String fields,
+                                                        WebRequest request) {
+        FilmFields selected = FilmFields.parse(view, fields);
+        if (afterId == null && limit == null) {
+            return ETags.ifNoneMatch(request, versions.filmsTag(),
+                    () -> selected.apply(filmService.getAllFilms(selected.withLikes())));
+        }
+        log.info("Запрошена страница фильмов после id {} размером {}", afterId, limit);
+        return ETags.ifNoneMatch(request, versions.filmsTag(), () -> selected.apply(filmService.getFilms(afterId,
+                limit == null ? FilmService.MAX_PAGE_SIZE : limit, selected.withLikes())));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFilms(
+            @RequestParam(required = false, defaultValue = "500") int pageSize) {
+        log.info("Запрошена потоковая выгрузка фильмов страницами по {}", pageSize);
+        if (pageSize < 1 || pageSize > FilmService.MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр pageSize должен быть от 1 до " + FilmService.MAX_PAGE_SIZE);
+        }
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                filmService.forEachFilm(pageSize, true, film -> {
+                    try {
+                        objectMapper.writeValue(generator, film);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @PostMapping
@@ -32,6 +84,14 @@ public class FilmController {
         return ResponseEntity.ok(film);
     }
 
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportResult> importFilms(HttpServletRequest request,
+                                                    @RequestParam(required = false) Integer batchSize) throws IOException {
+        log.info("Запрошен пакетный импорт фильмов");
+        ImportResult result = filmImportService.importFilms(request.getInputStream(), batchSize);
+        return ResponseEntity.status(result.isAborted() ? HttpStatus.BAD_REQUEST : HttpStatus.OK).body(result);
+    }
+
     @PutMapping
     public ResponseEntity<?> updateFilm(@Valid @RequestBody Film newFilm) {
         filmService.updateFilm(newFilm);
@@ -39,8 +99,13 @@ public class FilmController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getFilm(@PathVariable int id) {
-        return ResponseEntity.ok(filmService.findFilm(id));
+    public ResponseEntity<MappingJacksonValue> getFilm(@PathVariable int id,
+                                                       @RequestParam(required = false) String view,
+                                                       @RequestParam(required = false) String fields,
+                                                       WebRequest request) {
+        FilmFields selected = FilmFields.parse(view, fields);
+        return ETags.ifNoneMatch(request, versions.filmTag(id),
+                () -> selected.apply(filmService.findFilm(id, selected.withLikes())));
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -57,12 +122,41 @@ public class FilmController {
         return ResponseEntity.status(HttpStatus.OK).build();
     }
 
+    @PostMapping("/likes:batch")
+    public ResponseEntity<List<LikeResult>> addLikes(@RequestBody List<Like> likes) {
+        log.info("Пакетное добавление лайков, записей: {}", likes.size());
+        return ResponseEntity.ok(filmService.addLikes(likes));
+    }
+
+    @PostMapping("/likes:batchDelete")
+    public ResponseEntity<List<LikeResult>> deleteLikes(@RequestBody List<Like> likes) {
+        log.info("Пакетное удаление лайков, записей: {}", likes.size());
+        return ResponseEntity.ok(filmService.deleteLikes(likes));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<Film>> searchFilms(@RequestParam String query,
+                                                  @RequestParam(required = false, defaultValue = "title,description") String by,
+                                                  @RequestParam(required = false, defaultValue = "10") int count) {
+        log.info("Запрошен поиск фильмов: {}", query);
+        return ResponseEntity.ok(filmService.searchFilms(query, by, count));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<Film>> getTrendingFilms(@RequestParam(required = false, defaultValue = "24h") String window,
+                                                       @RequestParam(required = false, defaultValue = "10") int count) {
+        log.info("Запрошен список {} фильмов в тренде за {}", count, window);
+        return ResponseEntity.ok(filmService.getTrendingFilms(window, count));
+    }
+
     @GetMapping("/popular")
-    public ResponseEntity<List<Film>> getPopularFilms(@RequestParam(required = false, defaultValue = "10") int count) {
+    public ResponseEntity<List<Film>> getPopularFilms(@RequestParam(required = false, defaultValue = "10") int count,
+                                                      @RequestParam(required = false) Long genreId,
+                                                      @RequestParam(required = false) Integer year) {
         if (count < 1) {
             throw new IllegalArgumentException("Параметр count не может быть меньше 1");
         }
         log.info("Запрошен список {} популярных фильмов", count);
-        return ResponseEntity.ok(filmService.getTopFilms(count));
+        return ResponseEntity.ok(filmService.getTopFilms(count, genreId, year));
     }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Поля фильма в ответе. view=summary отдаёт likesCount вместо id пользователей, поставивших лайк,
+ * fields перечисляет нужные поля явно и имеет приоритет над view.
+ */
+record FilmFields(Set<String> names) {
+    private static final Set<String> ALL = Set.of("id", "name", "description", "releaseDate", "duration",
+            "like", "genres", "mpa", "likesCount");
+    private static final Set<String> SUMMARY = Set.of("id", "name", "description", "releaseDate", "duration",
+            "genres", "mpa", "likesCount");
+
+    static FilmFields parse(String view, String fields) {
+        if (fields != null) {
+            Set<String> names = new LinkedHashSet<>();
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (!ALL.contains(name)) {
+                    throw new ValidationException("Неизвестное поле фильма: " + name);
+                }
+                names.add(name);
+            }
+            return new FilmFields(names);
+        }
+        if (view == null || view.equals("full")) {
+            return new FilmFields(ALL);
+        }
+        if (view.equals("summary")) {
+            return new FilmFields(SUMMARY);
+        }
+        throw new ValidationException("Параметр view может быть только full или summary");
+    }
+
+    boolean withLikes() {
+        return names.contains("like");
+    }
+
+    MappingJacksonValue apply(Object body) {
+        if (body == null) {
+            return null;
+        }
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider()
+                .addFilter(Film.FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(names)));
+        return value;
+    }
+}
@@ -1,12 +1,15 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 
 import java.util.List;
 
@@ -16,15 +19,16 @@ import java.util.List;
 
 public class GenreController {
     private final GenreService genreService;
+    private final ResourceVersions versions;
 
 
     @GetMapping
-    public List<Genre> getAll() {
-        return genreService.getAll();
+    public ResponseEntity<List<Genre>> getAll(WebRequest request) {
+        return ETags.ifNoneMatch(request, versions.referenceTag("genres"), genreService::getAll);
     }
 
     @GetMapping("/{id}")
-    public Genre getById(@PathVariable Long id) {
-        return genreService.getById(id);
+    public ResponseEntity<Genre> getById(@PathVariable Long id, WebRequest request) {
+        return ETags.ifNoneMatch(request, versions.referenceTag("genres-" + id), () -> genreService.getById(id));
     }
 }
\ No newline at end of file
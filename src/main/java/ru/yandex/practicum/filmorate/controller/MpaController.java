@@ -2,12 +2,15 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 
 import java.util.List;
 
@@ -17,14 +20,15 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MpaController {
     private final MpaService mpaService;
+    private final ResourceVersions versions;
 
     @GetMapping
-    public List<Mpa> getAll() {
-        return mpaService.getAll();
+    public ResponseEntity<List<Mpa>> getAll(WebRequest request) {
+        return ETags.ifNoneMatch(request, versions.referenceTag("mpa"), mpaService::getAll);
     }
 
     @GetMapping("/{id}")
-    public Mpa getById(@PathVariable Long id) {
-        return mpaService.getById(id);
+    public ResponseEntity<Mpa> getById(@PathVariable Long id, WebRequest request) {
+        return ETags.ifNoneMatch(request, versions.referenceTag("mpa-" + id), () -> mpaService.getById(id));
     }
 }
\ No newline at end of file
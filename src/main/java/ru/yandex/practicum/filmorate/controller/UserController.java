@@ -6,7 +6,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendRecommendationService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
@@ -19,10 +24,13 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final FriendRecommendationService friendRecommendationService;
+    private final FilmService filmService;
+    private final ResourceVersions versions;
 
     @GetMapping
-    public ResponseEntity<List<User>> findAllUsers() {
-        return ResponseEntity.ok(userService.getUsers());
+    public ResponseEntity<List<User>> findAllUsers(WebRequest request) {
+        return ETags.ifNoneMatch(request, versions.usersTag(), userService::getUsers);
     }
 
     @PostMapping
@@ -40,9 +48,9 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findUser(@PathVariable int id) {
+    public ResponseEntity<User> findUser(@PathVariable int id, WebRequest request) {
         log.info("Получение пользователя по id = {}", id);
-        return ResponseEntity.ok(userService.findUser(id));
+        return ETags.ifNoneMatch(request, versions.userTag(id), () -> userService.findUser(id));
     }
 
     @PutMapping("/{id}/friends/{friendId}")
@@ -71,4 +79,17 @@ public class UserController {
         return ResponseEntity.ok(userService.getMutualFriends(id, otherId));
     }
 
+    @GetMapping("/{id}/recommendations/friends")
+    public ResponseEntity<List<User>> recommendFriends(@PathVariable long id,
+                                                       @RequestParam(required = false, defaultValue = "10") int limit) {
+        log.info("Получение рекомендаций друзей для пользователя с id = {}", id);
+        return ResponseEntity.ok(friendRecommendationService.recommendFriends(id, limit));
+    }
+
+    @GetMapping("/{id}/recommendations/films")
+    public ResponseEntity<List<Film>> recommendFilms(@PathVariable int id,
+                                                     @RequestParam(required = false, defaultValue = "10") int limit) {
+        log.info("Получение рекомендаций фильмов для пользователя с id = {}", id);
+        return ResponseEntity.ok(filmService.recommendFilms(id, limit));
+    }
 }
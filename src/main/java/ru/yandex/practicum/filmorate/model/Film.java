@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
@@ -7,9 +9,7 @@ import lombok.*;
 import ru.yandex.practicum.filmorate.anotation.BeforeDate;
 
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 @Data
 @Builder(toBuilder = true)
@@ -17,7 +17,13 @@ import java.util.Set;
 @RequiredArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode
+@JsonFilter(Film.FIELDS_FILTER)
 public class Film {
+    /**
+     * Фильтр Jackson для выбора полей ответа параметром fields.
+     */
+    public static final String FIELDS_FILTER = "filmFields";
+
     private Long id;
     @NotBlank
     private String name;
@@ -27,8 +33,11 @@ public class Film {
     private LocalDate releaseDate;
     @Positive(message = "Продолжительность фильма должна быть положительным числом")
     private int duration;
-    private Set<Integer> like = new HashSet<>();
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private IdSet like = IdSet.empty();
     private List<Genre> genres;
     @NonNull
     private Mpa mpa;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long likesCount;
 }
@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * Неизменяемое множество id на отсортированном массиве long: 8 байт на id вместо узла HashSet с Integer.
+ * В JSON записывается обычным массивом чисел.
+ */
+@JsonSerialize(using = IdSet.Serializer.class)
+@JsonDeserialize(using = IdSet.Deserializer.class)
+public final class IdSet {
+    private static final IdSet EMPTY = new IdSet(new long[0]);
+
+    private final long[] ids;
+
+    private IdSet(long[] sortedIds) {
+        this.ids = sortedIds;
+    }
+
+    public static IdSet empty() {
+        return EMPTY;
+    }
+
+    public static IdSet of(long... ids) {
+        return builder(ids.length).addAll(ids).build();
+    }
+
+    public static Builder builder() {
+        return new Builder(8);
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(ids);
+    }
+
+    public long[] toArray() {
+        return ids.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof IdSet other && Arrays.equals(ids, other.ids);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ids);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(ids);
+    }
+
+    /**
+     * Собирает множество из id в любом порядке, повторы отбрасываются при сборке.
+     */
+    public static final class Builder {
+        private long[] ids;
+        private int size;
+
+        private Builder(int expectedSize) {
+            this.ids = new long[Math.max(expectedSize, 1)];
+        }
+
+        public Builder add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+            return this;
+        }
+
+        public Builder addAll(long... values) {
+            for (long id : values) {
+                add(id);
+            }
+            return this;
+        }
+
+        public IdSet build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            long[] sorted = Arrays.copyOf(ids, size);
+            Arrays.sort(sorted);
+            int unique = 1;
+            for (int i = 1; i < sorted.length; i++) {
+                if (sorted[i] != sorted[unique - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            return new IdSet(unique == sorted.length ? sorted : Arrays.copyOf(sorted, unique));
+        }
+    }
+
+    public static final class Serializer extends JsonSerializer<IdSet> {
+        @Override
+        public void serialize(IdSet value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeArray(value.ids, 0, value.ids.length);
+        }
+
+        @Override
+        public boolean isEmpty(SerializerProvider provider, IdSet value) {
+            return value.isEmpty();
+        }
+    }
+
+    public static final class Deserializer extends JsonDeserializer<IdSet> {
+        @Override
+        public IdSet deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartArrayToken()) {
+                return (IdSet) context.handleUnexpectedToken(IdSet.class, parser);
+            }
+            Builder builder = builder();
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token != JsonToken.VALUE_NUMBER_INT) {
+                    return (IdSet) context.handleUnexpectedToken(IdSet.class, parser);
+                }
+                builder.add(parser.getLongValue());
+            }
+            return builder.build();
+        }
+
+        @Override
+        public IdSet getEmptyValue(DeserializationContext context) {
+            return EMPTY;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportResult {
+    private long imported;
+    private long failed;
+    private long elapsedMillis;
+    private boolean aborted;
+    private List<String> errors = new ArrayList<>();
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LikeResult {
+    private Long filmId;
+    private Long userId;
+    private Status status;
+
+    public enum Status {
+        LIKED,
+        ALREADY_LIKED,
+        UNLIKED,
+        NOT_LIKED,
+        FILM_NOT_FOUND,
+        USER_NOT_FOUND
+    }
+}
@@ -0,0 +1,151 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Потоковый импорт фильмов из JSON-массива или NDJSON.
+ * В памяти одновременно находится не больше одной пачки фильмов.
+ * Фильм, который не удалось разобрать, попадает в ошибки, а импорт продолжается со следующего.
+ * Если сломан сам JSON, импорт останавливается, а уже загруженные фильмы остаются в базе.
+ */
+@Slf4j
+@Service
+public class FilmImportService {
+    public static final int MAX_BATCH_SIZE = 5000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ObjectReader filmReader;
+    private final Validator validator;
+    private final FilmStorage filmStorage;
+    private final MpaStorage mpaStorage;
+    private final GenreStorage genreStorage;
+    private final FilmLeaderboard leaderboard;
+    private final FilmSearchIndex searchIndex;
+    private final ResourceVersions versions;
+    private final int defaultBatchSize;
+
+    public FilmImportService(ObjectMapper objectMapper,
+                             Validator validator,
+                             FilmStorage filmStorage,
+                             MpaStorage mpaStorage,
+                             GenreStorage genreStorage,
+                             FilmLeaderboard leaderboard,
+                             FilmSearchIndex searchIndex,
+                             ResourceVersions versions,
+                             @Value("${filmorate.import.batch-size:500}") int defaultBatchSize) {
+        this.filmReader = objectMapper.readerFor(Film.class);
+        this.validator = validator;
+        this.filmStorage = filmStorage;
+        this.mpaStorage = mpaStorage;
+        this.genreStorage = genreStorage;
+        this.leaderboard = leaderboard;
+        this.searchIndex = searchIndex;
+        this.versions = versions;
+        this.defaultBatchSize = defaultBatchSize;
+    }
+
+    public ImportResult importFilms(InputStream input, Integer batchSize) throws IOException {
+        int size = batchSize == null ? defaultBatchSize : batchSize;
+        if (size < 1 || size > MAX_BATCH_SIZE) {
+            throw new ValidationException("Параметр batchSize должен быть от 1 до " + MAX_BATCH_SIZE);
+        }
+        ImportResult result = new ImportResult();
+        long start = System.currentTimeMillis();
+        List<Film> batch = new ArrayList<>(size);
+        long position = 0;
+        try (MappingIterator<Film> films = filmReader.readValues(input)) {
+            while (films.hasNextValue()) {
+                position++;
+                Film film;
+                try {
+                    film = films.nextValue();
+                } catch (JsonMappingException e) {
+                    reject(result, position, "некорректный фильм: " + e.getOriginalMessage());
+                    continue;
+                }
+                String error = validate(film);
+                if (error != null) {
+                    reject(result, position, error);
+                    continue;
+                }
+                batch.add(film);
+                if (batch.size() == size) {
+                    flush(batch, result);
+                }
+            }
+        } catch (JsonParseException e) {
+            reject(result, position, "некорректный JSON: " + e.getOriginalMessage());
+            result.setAborted(true);
+            log.warn("Импорт фильмов прерван на фильме №{}: {}", position, e.getOriginalMessage());
+        }
+        flush(batch, result);
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        log.info("Импорт фильмов завершён: загружено {}, отклонено {}, за {} мс",
+                result.getImported(), result.getFailed(), result.getElapsedMillis());
+        return result;
+    }
+
+    private String validate(Film film) {
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .collect(Collectors.joining(", "));
+        }
+        if (film.getMpa() == null || mpaStorage.getById(film.getMpa().getId()) == null) {
+            return "Рейтинг " + film.getMpa() + " не найден";
+        }
+        if (film.getGenres() != null) {
+            try {
+                genreStorage.checkGenresExists(film.getGenres());
+            } catch (NotFoundException e) {
+                return e.getMessage();
+            }
+        }
+        return null;
+    }
+
+    private void reject(ImportResult result, long position, String error) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add("Фильм №" + position + ": " + error);
+        }
+    }
+
+    private void flush(List<Film> batch, ImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        filmStorage.createFilms(batch).forEach(film -> {
+            leaderboard.putFilm(film);
+            searchIndex.put(film);
+            versions.filmChanged(film.getId());
+        });
+        result.setImported(result.getImported() + batch.size());
+        log.info("Импортировано фильмов: {}", result.getImported());
+        batch.clear();
+    }
+}
@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Рейтинг фильмов по количеству лайков, который хранится в памяти и обновляется при каждом лайке.
+ * Все изменения счётчика фильма идут через compute по его id, поэтому лайки и сверка не перетирают друг друга.
+ * Перестановка записи в рейтинге идёт под блокировкой записи, а top читает с оптимистичной блокировкой
+ * и перечитывает рейтинг, если во время обхода фильм переставили: иначе обход мог бы пропустить фильм,
+ * который перескочил через уже пройденную позицию.
+ */
+@Slf4j
+@Component
+public class FilmLeaderboard {
+    private final Map<Long, Score> likes = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Entry::likes).reversed().thenComparingLong(Entry::filmId));
+    private final StampedLock rankingLock = new StampedLock();
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLong lastDrift = new AtomicLong();
+    private final Counter driftCounter;
+
+    public FilmLeaderboard(MeterRegistry registry) {
+        registry.gauge("filmorate.leaderboard.drift", lastDrift);
+        registry.gaugeMapSize("filmorate.leaderboard.size", List.of(), likes);
+        driftCounter = registry.counter("filmorate.leaderboard.drift.total");
+    }
+
+    /**
+     * @param films фильмы с заполненным likesCount
+     */
+    public void load(List<Film> films) {
+        long stamp = rankingLock.writeLock();
+        try {
+            ranking.clear();
+            likes.clear();
+            for (Film film : films) {
+                long count = film.getLikesCount() == null ? 0 : film.getLikesCount();
+                likes.put(film.getId(), new Score(count, 0));
+                ranking.add(new Entry(film.getId(), count));
+            }
+        } finally {
+            rankingLock.unlockWrite(stamp);
+        }
+        log.info("Рейтинг фильмов загружен, фильмов: {}", likes.size());
+    }
+
+    public void putFilm(Film film) {
+        likes.computeIfAbsent(film.getId(), id -> {
+            ranking.add(new Entry(id, 0));
+            return new Score(0, changes.incrementAndGet());
+        });
+    }
+
+    public void addLike(long filmId) {
+        changeLikes(filmId, 1);
+    }
+
+    public void removeLike(long filmId) {
+        changeLikes(filmId, -1);
+    }
+
+    public long likesOf(long filmId) {
+        Score score = likes.get(filmId);
+        return score == null ? 0 : score.likes();
+    }
+
+    public List<Long> topIds(int limit) {
+        long stamp = rankingLock.tryOptimisticRead();
+        List<Long> ids = collectTop(limit);
+        if (!rankingLock.validate(stamp)) {
+            stamp = rankingLock.readLock();
+            try {
+                ids = collectTop(limit);
+            } finally {
+                rankingLock.unlockRead(stamp);
+            }
+        }
+        return ids;
+    }
+
+    private List<Long> collectTop(int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(limit, likes.size()));
+        Iterator<Entry> iterator = ranking.iterator();
+        while (iterator.hasNext() && ids.size() < limit) {
+            ids.add(iterator.next().filmId());
+        }
+        return ids;
+    }
+
+    /**
+     * Сверяет рейтинг с количеством лайков из базы и исправляет расхождения.
+     * Фильмы, счётчик которых менялся после начала выборки из базы, пропускаются до следующей сверки:
+     * выборка может не видеть эти лайки.
+     *
+     * @param actualCounts выборка количества лайков по id фильма из таблицы likes
+     * @return количество фильмов, у которых счётчик в памяти расходился с базой
+     */
+    public long reconcile(Supplier<Map<Long, Long>> actualCounts) {
+        long snapshot = changes.get();
+        Map<Long, Long> actual = actualCounts.get();
+        AtomicLong drift = new AtomicLong();
+        for (Long filmId : likes.keySet()) {
+            long expected = actual.getOrDefault(filmId, 0L);
+            likes.computeIfPresent(filmId, (id, score) -> {
+                if (score.changedAt() > snapshot || score.likes() == expected) {
+                    return score;
+                }
+                drift.incrementAndGet();
+                return swap(id, score, expected, score.changedAt());
+            });
+        }
+        lastDrift.set(drift.get());
+        driftCounter.increment(drift.get());
+        return drift.get();
+    }
+
+    private void changeLikes(long filmId, long delta) {
+        long change = changes.incrementAndGet();
+        likes.computeIfPresent(filmId, (id, score) -> swap(id, score, Math.max(0, score.likes() + delta), change));
+    }
+
+    private Score swap(long filmId, Score score, long updated, long changedAt) {
+        if (updated != score.likes()) {
+            long stamp = rankingLock.writeLock();
+            try {
+                ranking.remove(new Entry(filmId, score.likes()));
+                ranking.add(new Entry(filmId, updated));
+            } finally {
+                rankingLock.unlockWrite(stamp);
+            }
+        }
+        return new Score(updated, changedAt);
+    }
+
+    private record Score(long likes, long changedAt) {
+    }
+
+    private record Entry(long filmId, long likes) {
+    }
+}
@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.SortedIdIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Индекс лайков в памяти (пользователь -> фильмы и фильм -> пользователи) для рекомендаций фильмов.
+ * Похожесть пользователей считается по коэффициенту Жаккара их множеств лайков.
+ */
+@Slf4j
+@Component
+public class FilmLikesIndex {
+    private final SortedIdIndex filmsByUser = new SortedIdIndex();
+    private final SortedIdIndex usersByFilm = new SortedIdIndex();
+    private final int similarUsers;
+    private final int maxLikersPerFilm;
+
+    public FilmLikesIndex(@Value("${filmorate.recommendations.films.similar-users:20}") int similarUsers,
+                          @Value("${filmorate.recommendations.films.max-likers-per-film:10000}") int maxLikersPerFilm) {
+        this.similarUsers = similarUsers;
+        this.maxLikersPerFilm = maxLikersPerFilm;
+    }
+
+    public void load(Map<Long, long[]> likedFilmsByUser) {
+        filmsByUser.clear();
+        usersByFilm.clear();
+        Map<Long, List<Long>> likers = new HashMap<>();
+        likedFilmsByUser.forEach((userId, films) -> {
+            filmsByUser.put(userId, films);
+            for (long filmId : films) {
+                likers.computeIfAbsent(filmId, id -> new ArrayList<>()).add(userId);
+            }
+        });
+        likers.forEach((filmId, users) ->
+                usersByFilm.put(filmId, users.stream().mapToLong(Long::longValue).sorted().toArray()));
+        log.info("Индекс лайков загружен: пользователей {}, фильмов {}", filmsByUser.size(), usersByFilm.size());
+    }
+
+    public void addLike(long filmId, long userId) {
+        filmsByUser.add(userId, filmId);
+        usersByFilm.add(filmId, userId);
+    }
+
+    public void removeLike(long filmId, long userId) {
+        filmsByUser.remove(userId, filmId);
+        usersByFilm.remove(filmId, userId);
+    }
+
+    public List<Long> recommend(long userId, int limit) {
+        long[] liked = filmsByUser.get(userId);
+        if (liked.length == 0) {
+            return List.of();
+        }
+        Map<Long, Integer> overlaps = new HashMap<>();
+        for (long filmId : liked) {
+            long[] likers = usersByFilm.get(filmId);
+            if (likers.length > maxLikersPerFilm) {
+                continue;
+            }
+            for (long other : likers) {
+                if (other != userId) {
+                    overlaps.merge(other, 1, Integer::sum);
+                }
+            }
+        }
+
+        PriorityQueue<Map.Entry<Long, Double>> neighbours = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Long, Integer> overlap : overlaps.entrySet()) {
+            int otherSize = filmsByUser.get(overlap.getKey()).length;
+            double jaccard = (double) overlap.getValue() / (liked.length + otherSize - overlap.getValue());
+            neighbours.offer(Map.entry(overlap.getKey(), jaccard));
+            if (neighbours.size() > similarUsers) {
+                neighbours.poll();
+            }
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (Map.Entry<Long, Double> neighbour : neighbours) {
+            for (long filmId : filmsByUser.get(neighbour.getKey())) {
+                if (!SortedIdIndex.contains(liked, filmId)) {
+                    scores.merge(filmId, neighbour.getValue(), Double::sum);
+                }
+            }
+        }
+        return top(scores, limit);
+    }
+
+    private List<Long> top(Map<Long, Double> scores, int limit) {
+        Comparator<Map.Entry<Long, Double>> byScore = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(limit + 1, byScore);
+        for (Map.Entry<Long, Double> score : scores.entrySet()) {
+            heap.offer(score);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Long> films = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            films.add(heap.poll().getKey());
+        }
+        Collections.reverse(films);
+        return films;
+    }
+}
@@ -0,0 +1,183 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Инвертированный индекс по названию и описанию фильмов для поиска по словам и их началу.
+ * Слова приводятся к нижнему регистру, «ё» заменяется на «е».
+ */
+@Slf4j
+@Component
+public class FilmSearchIndex {
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int EXACT_MATCH = 2;
+    private static final int PREFIX_MATCH = 1;
+
+    private final Map<Field, NavigableMap<String, Set<Long>>> postings = new HashMap<>();
+    private final Map<Long, Map<Field, Set<String>>> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public enum Field {
+        TITLE(3), DESCRIPTION(1);
+
+        private final int weight;
+
+        Field(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    public FilmSearchIndex() {
+        for (Field field : Field.values()) {
+            postings.put(field, new TreeMap<>());
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.values().forEach(Map::clear);
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Film film) {
+        Map<Field, Set<String>> document = Map.of(
+                Field.TITLE, new HashSet<>(tokenize(film.getName())),
+                Field.DESCRIPTION, new HashSet<>(tokenize(film.getDescription())));
+        lock.writeLock().lock();
+        try {
+            removeDocument(film.getId());
+            document.forEach((field, tokens) -> tokens.forEach(token ->
+                    postings.get(field).computeIfAbsent(token, t -> new HashSet<>()).add(film.getId())));
+            documents.put(film.getId(), document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ищет фильмы, в которых встречаются все слова запроса: слово совпадает целиком или является началом слова.
+     *
+     * @param popularity количество лайков фильма, упорядочивает фильмы с одинаковой релевантностью
+     * @return id найденных фильмов, сначала самые релевантные
+     */
+    public List<Long> search(String query, Set<Field> fields, int limit, ToLongFunction<Long> popularity) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> scores;
+        lock.readLock().lock();
+        try {
+            scores = score(terms.get(0), fields);
+            for (String term : terms.subList(1, terms.size())) {
+                if (scores.isEmpty()) {
+                    break;
+                }
+                Map<Long, Integer> termScores = score(term, fields);
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((filmId, score) -> score + termScores.get(filmId));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return top(scores, limit, popularity);
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATOR.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private Map<Long, Integer> score(String term, Set<Field> fields) {
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Field field : fields) {
+            NavigableMap<String, Set<Long>> terms = postings.get(field);
+            terms.subMap(term, true, term + Character.MAX_VALUE, false).forEach((token, films) -> {
+                int score = field.weight * (token.equals(term) ? EXACT_MATCH : PREFIX_MATCH);
+                films.forEach(filmId -> scores.merge(filmId, score, Math::max));
+            });
+        }
+        return scores;
+    }
+
+    private List<Long> top(Map<Long, Integer> scores, int limit, ToLongFunction<Long> popularity) {
+        Map<Long, Long> likes = new HashMap<>();
+        scores.keySet().forEach(filmId -> likes.put(filmId, popularity.applyAsLong(filmId)));
+        PriorityQueue<Long> heap = new PriorityQueue<>(limit + 1, (left, right) -> {
+            int byScore = Integer.compare(scores.get(left), scores.get(right));
+            if (byScore != 0) {
+                return byScore;
+            }
+            int byLikes = Long.compare(likes.get(left), likes.get(right));
+            return byLikes != 0 ? byLikes : Long.compare(right, left);
+        });
+        for (Long filmId : scores.keySet()) {
+            heap.offer(filmId);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Long> films = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            films.add(heap.poll());
+        }
+        Collections.reverse(films);
+        return films;
+    }
+
+    private void removeDocument(Long filmId) {
+        Map<Field, Set<String>> document = documents.remove(filmId);
+        if (document == null) {
+            return;
+        }
+        document.forEach((field, tokens) -> tokens.forEach(token -> {
+            Set<Long> films = postings.get(field).get(token);
+            if (films != null) {
+                films.remove(filmId);
+                if (films.isEmpty()) {
+                    postings.get(field).remove(token);
+                }
+            }
+        }));
+    }
+}
@@ -2,44 +2,106 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeResult;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FilmService {
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_LIKES_BATCH_SIZE = 1000;
+
     private final FilmStorage filmStorage;
     private final GenreStorage genreStorage;
     private final MpaStorage mpaStorage;
     private final UserStorage userStorage;
+    private final FilmLeaderboard leaderboard;
+    private final FilmLikesIndex likesIndex;
+    private final TrendingFilms trending;
+    private final FilmSearchIndex searchIndex;
+    private final Optional<LikeWriteBehindQueue> writeBehind;
+    private final ResourceVersions versions;
 
     public List<Film> getAllFilms() {
-        return filmStorage.allFilms();
+        return getAllFilms(true);
+    }
+
+    public List<Film> getAllFilms(boolean withLikes) {
+        return filmStorage.allFilms(withLikes);
+    }
+
+    public List<Film> getFilms(Long afterId, int limit) {
+        return getFilms(afterId, limit, true);
+    }
+
+    public List<Film> getFilms(Long afterId, int limit, boolean withLikes) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return filmStorage.findFilms(afterId == null ? 0 : afterId, limit, withLikes);
+    }
+
+    /**
+     * @param withLikes загружать ли id пользователей, поставивших лайк; без них заполняется только likesCount
+     */
+    public void forEachFilm(int pageSize, boolean withLikes, Consumer<Film> consumer) {
+        long afterId = 0;
+        List<Film> page = getFilms(afterId, pageSize, withLikes);
+        while (!page.isEmpty()) {
+            page.forEach(consumer);
+            afterId = page.get(page.size() - 1).getId();
+            page = getFilms(afterId, pageSize, withLikes);
+        }
     }
 
     public Film findFilm(int filmId) {
         return filmStorage.findFilm(filmId);
     }
 
+    public Film findFilm(int filmId, boolean withLikes) {
+        return filmStorage.findFilm(filmId, withLikes);
+    }
+
     public Film updateFilm(Film newFilm) {
         if (newFilm.getId() == null) {
             log.error("нет айди");
             throw new ValidationException("Id должен быть указан");
         }
-        if (filmStorage.findFilm(newFilm.getId().intValue()) == null) {
+        if (!filmStorage.existsById(newFilm.getId())) {
             log.error("такого фильма нет {}", newFilm.getId());
             throw new NotFoundException("Фильм с id = " + newFilm.getId() + " не найден");
         }
-        return filmStorage.updateFilm(newFilm);
+        Film film = filmStorage.updateFilm(newFilm);
+        leaderboard.putFilm(film);
+        searchIndex.put(film);
+        versions.filmChanged(film.getId());
+        return film;
     }
 
     public Film createFilm(Film film) {
@@ -49,38 +111,271 @@ public class FilmService {
         if (film.getGenres() != null) {
             genreStorage.checkGenresExists(film.getGenres());
         }
-        return filmStorage.createFilm(film);
+        Film created = filmStorage.createFilm(film);
+        leaderboard.putFilm(created);
+        searchIndex.put(created);
+        versions.filmChanged(created.getId());
+        return created;
     }
 
+    /**
+     * Порядок и количество лайков берутся из рейтинга в памяти, а сами фильмы из кэша без списка лайков.
+     */
     public List<Film> getTopFilms(int limit) {
         log.info("Получены лучшие {} фильмов", limit);
-        return filmStorage.getTopFilms(limit);
+        List<Film> films = findFilmsInOrder(leaderboard.topIds(limit), false);
+        films.forEach(film -> film.setLikesCount(leaderboard.likesOf(film.getId())));
+        return films;
+    }
+
+    public List<Film> getTopFilms(int limit, Long genreId, Integer year) {
+        if (genreId == null && year == null) {
+            return getTopFilms(limit);
+        }
+        if (limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр count не может быть больше " + MAX_PAGE_SIZE);
+        }
+        if (genreId != null && genreStorage.getById(genreId) == null) {
+            throw new NotFoundException("Жанра с таким id = " + genreId + " нет");
+        }
+        if (year != null && (year < 1895 || year > 9999)) {
+            throw new ValidationException("Некорректный год выпуска: " + year);
+        }
+        log.info("Получены лучшие {} фильмов жанра {} за {} год", limit, genreId, year);
+        return filmStorage.getTopFilms(limit, genreId, year);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndexes() {
+        int fixed = filmStorage.reconcileLikesCount();
+        if (fixed > 0) {
+            log.warn("Исправлен счётчик лайков у {} фильмов", fixed);
+        }
+        // счётчики уже сверены с таблицей лайков, поэтому повторная агрегация не нужна
+        leaderboard.load(filmStorage.getTopFilms(Integer.MAX_VALUE));
+        likesIndex.load(filmStorage.getLikedFilmsByUser());
+        trending.clear();
+        filmStorage.forEachLikeSince(Instant.now().minus(trending.getMaxWindow()), trending::addLike);
+        searchIndex.clear();
+        forEachFilm(MAX_PAGE_SIZE, false, searchIndex::put);
+        log.info("Поисковый индекс загружен, фильмов: {}", searchIndex.size());
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.leaderboard.check-interval:PT5M}",
+            initialDelayString = "${filmorate.leaderboard.check-interval:PT5M}")
+    public void checkLeaderboard() {
+        long drift = leaderboard.reconcile(filmStorage::getLikesCountByFilm);
+        if (drift > 0) {
+            log.warn("Рейтинг фильмов расходился с таблицей лайков у {} фильмов", drift);
+        }
     }
 
     public void addLike(int userId, int filmId) {
         log.info("Пользователь {} пытается поставить лайк фильму {}", userId, filmId);
-        if (filmStorage.findFilm(filmId) == null) {
+        if (!filmStorage.existsById(filmId)) {
             log.error("ошибка с id фильма  {}", filmId);
             throw new NotFoundException("Фильма с таким id найдено");
         }
-        if (userStorage.findUser(userId) == null) {
+        if (!userStorage.existsById(userId)) {
             log.error("ошибка с id юзера  {}", userId);
             throw new NotFoundException("Юзера с таким id найдено");
         }
-        filmStorage.addLike((long) filmId, (long) userId);
+        if (writeBehind.isPresent()) {
+            writeBehind.get().like(filmId, userId);
+            return;
+        }
+        Instant likedAt = filmStorage.addLike((long) filmId, (long) userId);
+        applyLike(filmId, userId, true, likedAt);
     }
 
     public void deleteLike(int userId, int filmId) {
         log.info("Пользователь {} пытается удалить лайк у фильма {}", userId, filmId);
-        if (filmStorage.findFilm(filmId) == null) {
+        if (!filmStorage.existsById(filmId)) {
             log.error("ошибка с id фильма  {}", filmId);
             throw new NotFoundException("Фильма с таким id найдено");
         }
-        if (userStorage.findUser(userId) == null) {
+        if (!userStorage.existsById(userId)) {
             log.error("ошибка с id юзера  {}", userId);
             throw new NotFoundException("Юзера с таким id найдено");
         }
-        filmStorage.removeLike((long) filmId, (long) userId);
+        if (writeBehind.isPresent()) {
+            writeBehind.get().unlike(filmId, userId);
+            return;
+        }
+        filmStorage.removeLike((long) filmId, (long) userId)
+                .ifPresent(likedAt -> applyLike(filmId, userId, false, likedAt));
+    }
+
+    public List<Film> recommendFilms(int userId, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        if (!userStorage.existsById(userId)) {
+            log.error("ошибка с id юзера  {}", userId);
+            throw new NotFoundException("Юзера с таким id найдено");
+        }
+        return findFilmsInOrder(likesIndex.recommend(userId, limit));
+    }
+
+    public List<Film> getTrendingFilms(String window, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        Duration duration;
+        try {
+            duration = DurationStyle.detectAndParse(window);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректный параметр window: " + window);
+        }
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(trending.getMaxWindow()) > 0) {
+            throw new ValidationException("Параметр window должен быть больше нуля и не больше " + trending.getMaxWindow());
+        }
+        log.info("Получены {} фильмов в тренде за {}", limit, duration);
+        return findFilmsInOrder(trending.top(duration, limit));
+    }
+
+    public List<Film> searchFilms(String query, String by, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр count должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        if (query == null || FilmSearchIndex.tokenize(query).isEmpty()) {
+            throw new ValidationException("Поисковый запрос не может быть пустым");
+        }
+        Set<FilmSearchIndex.Field> fields = EnumSet.noneOf(FilmSearchIndex.Field.class);
+        for (String field : by.split(",")) {
+            switch (field.trim().toLowerCase()) {
+                case "title" -> fields.add(FilmSearchIndex.Field.TITLE);
+                case "description" -> fields.add(FilmSearchIndex.Field.DESCRIPTION);
+                default -> throw new ValidationException("Поиск возможен только по title и description");
+            }
+        }
+        log.info("Поиск фильмов по запросу '{}' в полях {}", query, fields);
+        return findFilmsInOrder(searchIndex.search(query, fields, limit, leaderboard::likesOf));
+    }
+
+    private List<Film> findFilmsInOrder(List<Long> ids) {
+        return findFilmsInOrder(ids, true);
+    }
+
+    private List<Film> findFilmsInOrder(List<Long> ids, boolean withLikes) {
+        Map<Long, Film> films = new HashMap<>();
+        filmStorage.findFilmsByIds(ids, withLikes).forEach(film -> films.put(film.getId(), film));
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public List<LikeResult> addLikes(List<Like> likes) {
+        log.info("Пакетное добавление {} лайков", likes.size());
+        List<LikeResult> results = checkLikes(likes);
+        List<Like> valid = validLikes(likes, results);
+        if (!valid.isEmpty()) {
+            int[] inserted;
+            try {
+                inserted = filmStorage.addLikes(valid);
+            } catch (DuplicateKeyException e) {
+                // параллельный запрос успел вставить тот же лайк; повтор увидит его как уже поставленный
+                log.warn("Конфликт при пакетном добавлении лайков, повторяем пакет");
+                inserted = filmStorage.addLikes(valid);
+            }
+            applyBatchResult(valid, inserted, filmStorage.findLikeTimes(valid, inserted), results,
+                    LikeResult.Status.LIKED, LikeResult.Status.ALREADY_LIKED);
+        }
+        return results;
+    }
+
+    public List<LikeResult> deleteLikes(List<Like> likes) {
+        log.info("Пакетное удаление {} лайков", likes.size());
+        List<LikeResult> results = checkLikes(likes);
+        List<Like> valid = validLikes(likes, results);
+        if (!valid.isEmpty()) {
+            Map<Like, Instant> likedAt = filmStorage.findLikeTimes(valid);
+            int[] deleted = filmStorage.removeLikes(valid);
+            applyBatchResult(valid, deleted, likedAt, results, LikeResult.Status.UNLIKED,
+                    LikeResult.Status.NOT_LIKED);
+        }
+        return results;
+    }
+
+    private List<LikeResult> checkLikes(List<Like> likes) {
+        if (likes.size() > MAX_LIKES_BATCH_SIZE) {
+            throw new ValidationException("В одном запросе можно передать не больше " + MAX_LIKES_BATCH_SIZE + " лайков");
+        }
+        Set<Long> films = filmStorage.findExistingIds(likes.stream()
+                .map(Like::getFilmId).filter(Objects::nonNull).toList());
+        Set<Long> users = userStorage.findExistingIds(likes.stream()
+                .map(Like::getUserId).filter(Objects::nonNull).toList());
+        List<LikeResult> results = new ArrayList<>(likes.size());
+        for (Like like : likes) {
+            LikeResult.Status status = null;
+            if (!films.contains(like.getFilmId())) {
+                status = LikeResult.Status.FILM_NOT_FOUND;
+            } else if (!users.contains(like.getUserId())) {
+                status = LikeResult.Status.USER_NOT_FOUND;
+            }
+            results.add(new LikeResult(like.getFilmId(), like.getUserId(), status));
+        }
+        return results;
+    }
+
+    private List<Like> validLikes(List<Like> likes, List<LikeResult> results) {
+        List<Like> valid = new ArrayList<>();
+        for (int i = 0; i < likes.size(); i++) {
+            if (results.get(i).getStatus() == null) {
+                valid.add(likes.get(i));
+            }
+        }
+        return valid;
+    }
+
+    private void applyBatchResult(List<Like> valid, int[] affected, Map<Like, Instant> likedAt,
+                                  List<LikeResult> results, LikeResult.Status applied, LikeResult.Status skipped) {
+        int next = 0;
+        for (LikeResult result : results) {
+            if (result.getStatus() != null) {
+                continue;
+            }
+            Like like = valid.get(next);
+            boolean changed = affected[next++] > 0;
+            result.setStatus(changed ? applied : skipped);
+            if (changed) {
+                applyLike(result.getFilmId(), result.getUserId(), applied == LikeResult.Status.LIKED,
+                        likedAt.get(like));
+            }
+        }
+    }
+
+    @EventListener
+    public void onLikesFlushed(LikesFlushedEvent event) {
+        for (int i = 0; i < event.likes().size(); i++) {
+            if (event.affected()[i] > 0) {
+                Like like = event.likes().get(i);
+                applyLike(like.getFilmId(), like.getUserId(), event.liked(), event.likedAt().get(like));
+            }
+        }
+    }
+
+    /**
+     * Тренды считаются по времени лайка из базы, чтобы постановка и снятие лайка попадали в одну корзину.
+     *
+     * @param likedAt время лайка из таблицы likes; если неизвестно, тренды не меняются
+     */
+    private void applyLike(long filmId, long userId, boolean liked, Instant likedAt) {
+        versions.filmChanged(filmId);
+        if (liked) {
+            leaderboard.addLike(filmId);
+            likesIndex.addLike(filmId, userId);
+            if (likedAt != null) {
+                trending.addLike(filmId, likedAt);
+            }
+        } else {
+            leaderboard.removeLike(filmId);
+            likesIndex.removeLike(filmId, userId);
+            if (likedAt != null) {
+                trending.removeLike(filmId, likedAt);
+            }
+        }
     }
 
 }
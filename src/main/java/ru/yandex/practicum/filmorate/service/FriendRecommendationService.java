@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+/**
+ * Рекомендации друзей: друзья друзей, ранжированные по количеству общих друзей.
+ * Обход ограничен по числу друзей первого уровня, числу кандидатов и времени.
+ * Друзья друзей загружаются порциями, и по истечении времени возвращается то, что успели посчитать.
+ * Порции обходятся параллельно только при графе друзей в памяти (filmorate.friend-graph.enabled=true).
+ * Без него каждая порция — запрос к базе, и параллельный обход занял бы соединения пула у остальных запросов,
+ * поэтому порции читаются по очереди в вызывающем потоке, а время проверяется между ними.
+ */
+@Slf4j
+@Service
+public class FriendRecommendationService {
+    public static final int MAX_LIMIT = 100;
+    private static final int CHUNK_SIZE = 64;
+    private static final long[] NO_FRIENDS = new long[0];
+
+    private final UserStorage userStorage;
+    private final ForkJoinPool pool;
+    private final boolean parallel;
+    private final int maxFanOut;
+    private final int maxCandidates;
+    private final Duration timeout;
+
+    public FriendRecommendationService(UserStorage userStorage,
+                                       @Value("${filmorate.friend-graph.enabled:false}") boolean inMemoryGraph,
+                                       @Value("${filmorate.recommendations.friends.parallelism:0}") int parallelism,
+                                       @Value("${filmorate.recommendations.friends.max-fan-out:1000}") int maxFanOut,
+                                       @Value("${filmorate.recommendations.friends.max-candidates:100000}") int maxCandidates,
+                                       @Value("${filmorate.recommendations.friends.timeout:PT0.2S}") Duration timeout) {
+        this.userStorage = userStorage;
+        this.parallel = inMemoryGraph;
+        this.pool = inMemoryGraph
+                ? new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors())
+                : null;
+        this.maxFanOut = maxFanOut;
+        this.maxCandidates = maxCandidates;
+        this.timeout = timeout;
+    }
+
+    public List<User> recommendFriends(long userId, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_LIMIT);
+        }
+        if (!userStorage.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long[] friends = userStorage.getFriendIds(List.of(userId)).getOrDefault(userId, new long[0]);
+        if (friends.length > maxFanOut) {
+            log.warn("У пользователя {} {} друзей, обход ограничен первыми {}", userId, friends.length, maxFanOut);
+            friends = Arrays.copyOf(friends, maxFanOut);
+        }
+        if (friends.length == 0) {
+            return List.of();
+        }
+        Set<Long> excluded = new HashSet<>();
+        excluded.add(userId);
+        Arrays.stream(friends).forEach(excluded::add);
+        Map<Long, Integer> mutualCounts = countMutualFriends(friends, excluded, deadline);
+        List<Long> top = topCandidates(mutualCounts, limit);
+        Map<Long, User> users = new HashMap<>();
+        userStorage.findUsers(top).forEach(user -> users.put(user.getId(), user));
+        List<User> result = new ArrayList<>(top.size());
+        for (Long id : top) {
+            if (users.containsKey(id)) {
+                result.add(users.get(id));
+            }
+        }
+        return result;
+    }
+
+    private Map<Long, Integer> countMutualFriends(long[] friends, Set<Long> excluded, long deadline) {
+        Map<Long, Integer> counts = new ConcurrentHashMap<>();
+        int chunks = (friends.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (!parallel) {
+            int chunk = 0;
+            for (; chunk < chunks && System.nanoTime() < deadline; chunk++) {
+                countChunk(friends, chunk, excluded, counts, deadline);
+            }
+            if (chunk < chunks) {
+                log.warn("Не удалось обойти всех друзей друзей за {}, рекомендации построены частично", timeout);
+            }
+            return new HashMap<>(counts);
+        }
+        ForkJoinTask<?> task = pool.submit(() -> IntStream.range(0, chunks)
+                .parallel()
+                .forEach(chunk -> {
+                    if (System.nanoTime() < deadline) {
+                        countChunk(friends, chunk, excluded, counts, deadline);
+                    }
+                }));
+        try {
+            long remaining = Math.max(deadline - System.nanoTime(), 0);
+            task.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            log.warn("Не удалось обойти всех друзей друзей за {}, рекомендации построены частично", timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return new HashMap<>(counts);
+    }
+
+    private void countChunk(long[] friends, int chunk, Set<Long> excluded, Map<Long, Integer> counts, long deadline) {
+        long[] part = Arrays.copyOfRange(friends, chunk * CHUNK_SIZE, Math.min(friends.length, (chunk + 1) * CHUNK_SIZE));
+        Map<Long, long[]> secondHop = userStorage.getFriendIds(Arrays.stream(part).boxed().toList());
+        for (int i = 0; i < part.length && System.nanoTime() < deadline; i++) {
+            for (long candidate : secondHop.getOrDefault(part[i], NO_FRIENDS)) {
+                if (!excluded.contains(candidate) && (counts.size() < maxCandidates || counts.containsKey(candidate))) {
+                    counts.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+    }
+
+    private List<Long> topCandidates(Map<Long, Integer> mutualCounts, int limit) {
+        Comparator<Map.Entry<Long, Integer>> byRank = Map.Entry.<Long, Integer>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Integer>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Long, Integer>> heap = new PriorityQueue<>(limit + 1, byRank);
+        for (Map.Entry<Long, Integer> entry : mutualCounts.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Long> top = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            top.add(heap.poll().getKey());
+        }
+        Collections.reverse(top);
+        return top;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
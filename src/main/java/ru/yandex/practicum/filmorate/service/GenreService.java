@@ -18,10 +18,10 @@ public class GenreService {
     }
 
     public Genre getById(Long id) {
-        if (genreStorage.getById(id) == null) {
+        Genre genre = genreStorage.getById(id);
+        if (genre == null) {
             throw new NotFoundException("Жанра с таким id = " + id + " нет");
-        } else {
-            return genreStorage.getById(id);
         }
+        return genre;
     }
 }
\ No newline at end of file
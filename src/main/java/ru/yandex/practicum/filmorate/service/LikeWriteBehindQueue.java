@@ -0,0 +1,228 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Очередь отложенной записи лайков: лайки копятся в памяти и пишутся в базу пачками из фонового потока.
+ * Несколько операций над одной парой фильм-пользователь схлопываются в последнюю из них.
+ * Если запись пачки не удалась, её лайки повторяются при следующей записи, но не больше max-retries раз.
+ * Поток запускается и останавливается вместе с контекстом; при остановке оставшиеся лайки дописываются
+ * после остановки веб-сервера и до уничтожения бинов.
+ * Включается свойством filmorate.likes.write-behind.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.likes.write-behind.enabled", havingValue = "true")
+public class LikeWriteBehindQueue implements SmartLifecycle {
+    private final ConcurrentLinkedQueue<Operation> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object flushLock = new Object();
+    private final Map<Like, Pending> failed = new LinkedHashMap<>();
+    private final AtomicInteger failedSize = new AtomicInteger();
+    private final FilmStorage filmStorage;
+    private final ApplicationEventPublisher publisher;
+    private final int capacity;
+    private final int batchSize;
+    private final int maxRetries;
+    private final long flushIntervalNanos;
+    private final Timer flushTimer;
+    private final Counter coalesced;
+    private final Counter dropped;
+    private volatile Thread worker;
+    private volatile boolean running;
+
+    public LikeWriteBehindQueue(FilmStorage filmStorage,
+                                ApplicationEventPublisher publisher,
+                                MeterRegistry registry,
+                                @Value("${filmorate.likes.write-behind.capacity:100000}") int capacity,
+                                @Value("${filmorate.likes.write-behind.batch-size:1000}") int batchSize,
+                                @Value("${filmorate.likes.write-behind.max-retries:5}") int maxRetries,
+                                @Value("${filmorate.likes.write-behind.flush-interval:PT0.1S}") Duration flushInterval) {
+        this.filmStorage = filmStorage;
+        this.publisher = publisher;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxRetries = maxRetries;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.flushTimer = registry.timer("filmorate.likes.write-behind.flush");
+        this.coalesced = registry.counter("filmorate.likes.write-behind.coalesced");
+        this.dropped = registry.counter("filmorate.likes.write-behind.dropped");
+        registry.gauge("filmorate.likes.write-behind.queue.size", size);
+        registry.gauge("filmorate.likes.write-behind.failed.size", failedSize);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "like-write-behind");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(Duration.ofSeconds(10).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (failedSize.get() > 0) {
+            log.error("Очередь лайков остановлена, не записано лайков: {}", failedSize.get());
+        } else {
+            log.info("Очередь лайков остановлена, все лайки записаны");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Останавливается после веб-сервера, чтобы во время последней записи не приходили новые лайки.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    public void like(long filmId, long userId) {
+        enqueue(new Operation(filmId, userId, true));
+    }
+
+    public void unlike(long filmId, long userId) {
+        enqueue(new Operation(filmId, userId, false));
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Записывает в базу всё, что накопилось в очереди, в вызывающем потоке.
+     * События о записанных лайках публикуются после обеих записей, чтобы сбой слушателя не мешал снятию лайков.
+     */
+    public void flush() {
+        List<LikesFlushedEvent> events = new ArrayList<>(2);
+        synchronized (flushLock) {
+            Map<Like, Pending> pending = new LinkedHashMap<>(failed);
+            failed.clear();
+            int drained = 0;
+            Operation operation;
+            while ((operation = queue.poll()) != null) {
+                size.decrementAndGet();
+                drained++;
+                pending.put(new Like(operation.filmId(), operation.userId()), new Pending(operation.liked(), 0));
+            }
+            if (pending.isEmpty()) {
+                failedSize.set(0);
+                return;
+            }
+            coalesced.increment(drained - pending.size());
+            List<Like> likes = new ArrayList<>();
+            List<Like> unlikes = new ArrayList<>();
+            pending.forEach((like, state) -> (state.liked() ? likes : unlikes).add(like));
+            long start = System.nanoTime();
+            try {
+                if (!likes.isEmpty()) {
+                    int[] inserted = filmStorage.addLikes(likes);
+                    likes.forEach(pending::remove);
+                    events.add(new LikesFlushedEvent(likes, inserted, true, filmStorage.findLikeTimes(likes, inserted)));
+                }
+                if (!unlikes.isEmpty()) {
+                    Map<Like, Instant> likedAt = filmStorage.findLikeTimes(unlikes);
+                    int[] deleted = filmStorage.removeLikes(unlikes);
+                    unlikes.forEach(pending::remove);
+                    events.add(new LikesFlushedEvent(unlikes, deleted, false, likedAt));
+                }
+            } finally {
+                retryLater(pending);
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                publish(events);
+            }
+        }
+    }
+
+    private void retryLater(Map<Like, Pending> pending) {
+        pending.forEach((like, state) -> {
+            if (state.attempts() + 1 >= maxRetries) {
+                dropped.increment();
+                log.error("Лайк {} не удалось записать за {} попыток, он отброшен", like, maxRetries);
+            } else {
+                failed.put(like, new Pending(state.liked(), state.attempts() + 1));
+            }
+        });
+        failedSize.set(failed.size());
+    }
+
+    private void publish(List<LikesFlushedEvent> events) {
+        for (LikesFlushedEvent event : events) {
+            try {
+                publisher.publishEvent(event);
+            } catch (RuntimeException e) {
+                log.error("Не удалось обработать записанную пачку лайков", e);
+            }
+        }
+    }
+
+    private void enqueue(Operation operation) {
+        if (!running) {
+            throw new IllegalStateException("Очередь лайков остановлена");
+        }
+        while (size.get() + failedSize.get() >= capacity) {
+            log.warn("Очередь лайков заполнена ({}), запись выполняется в потоке запроса", capacity);
+            flush();
+        }
+        queue.offer(operation);
+        if (size.incrementAndGet() >= batchSize) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Не удалось записать пачку лайков", e);
+            }
+        }
+    }
+
+    private record Operation(long filmId, long userId, boolean liked) {
+    }
+
+    private record Pending(boolean liked, int attempts) {
+    }
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пачка лайков, записанная в базу очередью отложенной записи.
+ *
+ * @param likes    лайки пачки
+ * @param affected число изменённых строк для каждого лайка, как его вернул batchUpdate
+ * @param liked    true для поставленных лайков, false для снятых
+ * @param likedAt  время, когда были поставлены лайки, по данным таблицы likes
+ */
+public record LikesFlushedEvent(List<Like> likes, int[] affected, boolean liked, Map<Like, Instant> likedAt) {
+}
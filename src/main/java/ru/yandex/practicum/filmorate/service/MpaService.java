@@ -19,10 +19,10 @@ public class MpaService {
 
 
     public Mpa getById(Long id) {
-        if (mpaStorage.getById(id) == null) {
+        Mpa mpa = mpaStorage.getById(id);
+        if (mpa == null) {
             throw new NotFoundException("Рейтинга с таким id = " + id + " нет");
-        } else {
-            return mpaStorage.getById(id);
         }
+        return mpa;
     }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.genre.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.CachedMpaStorage;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReferenceDataService {
+    private final CachedGenreStorage genreStorage;
+    private final CachedMpaStorage mpaStorage;
+    private final ResourceVersions versions;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        log.info("Перезагрузка справочников жанров и рейтингов");
+        genreStorage.reload();
+        mpaStorage.reload();
+        versions.referenceChanged();
+    }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версии фильмов, пользователей и справочников для ETag.
+ * Версия меняется при каждом изменении ресурса; в ETag входит время запуска,
+ * поэтому после перезапуска приложения старые ETag не совпадают.
+ */
+@Component
+public class ResourceVersions {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong films = new AtomicLong();
+    private final AtomicLong users = new AtomicLong();
+    private final AtomicLong reference = new AtomicLong();
+    private final Map<Long, Long> filmVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> userVersions = new ConcurrentHashMap<>();
+
+    public void filmChanged(long filmId) {
+        filmVersions.merge(filmId, films.incrementAndGet(), Math::max);
+    }
+
+    public void userChanged(long userId) {
+        userVersions.merge(userId, users.incrementAndGet(), Math::max);
+    }
+
+    public void referenceChanged() {
+        reference.incrementAndGet();
+    }
+
+    public String filmsTag() {
+        return tag("films", films.get());
+    }
+
+    public String filmTag(long filmId) {
+        return tag("film-" + filmId, filmVersions.getOrDefault(filmId, 0L));
+    }
+
+    public String usersTag() {
+        return tag("users", users.get());
+    }
+
+    public String userTag(long userId) {
+        return tag("user-" + userId, userVersions.getOrDefault(userId, 0L));
+    }
+
+    public String referenceTag(String resource) {
+        return tag(resource, reference.get());
+    }
+
+    private String tag(String resource, long version) {
+        return "\"" + resource + "-" + epoch + "-" + version + "\"";
+    }
+}
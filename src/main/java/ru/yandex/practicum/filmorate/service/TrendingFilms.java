@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Счётчики лайков по временным корзинам для рейтинга фильмов за последние N часов.
+ * Для каждого фильма хранится кольцевой буфер корзин, устаревшие корзины обнуляются по расписанию.
+ */
+@Slf4j
+@Component
+public class TrendingFilms {
+    private final Map<Long, AtomicLongArray> counters = new ConcurrentHashMap<>();
+    private final long bucketMillis;
+    private final int buckets;
+    private final Clock clock;
+    private volatile long currentBucket;
+
+    @Autowired
+    public TrendingFilms(@Value("${filmorate.trending.bucket:PT1H}") Duration bucket,
+                         @Value("${filmorate.trending.max-window:P7D}") Duration maxWindow) {
+        this(bucket, maxWindow, Clock.systemUTC());
+    }
+
+    TrendingFilms(Duration bucket, Duration maxWindow, Clock clock) {
+        this.bucketMillis = bucket.toMillis();
+        this.buckets = (int) Math.ceil((double) maxWindow.toMillis() / bucketMillis);
+        this.clock = clock;
+        this.currentBucket = clock.millis() / bucketMillis;
+    }
+
+    public Duration getMaxWindow() {
+        return Duration.ofMillis(bucketMillis * buckets);
+    }
+
+    public void clear() {
+        counters.clear();
+        currentBucket = clock.millis() / bucketMillis;
+    }
+
+    public void addLike(long filmId) {
+        addLike(filmId, clock.instant());
+    }
+
+    public void addLike(long filmId, Instant likedAt) {
+        long bucket = likedAt.toEpochMilli() / bucketMillis;
+        if (bucket > currentBucket) {
+            roll();
+        }
+        if (bucket <= currentBucket - buckets || bucket > currentBucket) {
+            return;
+        }
+        counters.compute(filmId, (id, counts) -> {
+            AtomicLongArray updated = counts == null ? new AtomicLongArray(buckets) : counts;
+            updated.incrementAndGet(slot(bucket));
+            return updated;
+        });
+    }
+
+    /**
+     * Снимает лайк с корзины, в которую он попал при постановке. Лайки старше окна не учитываются.
+     */
+    public void removeLike(long filmId, Instant likedAt) {
+        long bucket = likedAt.toEpochMilli() / bucketMillis;
+        if (bucket <= currentBucket - buckets || bucket > currentBucket) {
+            return;
+        }
+        int slot = slot(bucket);
+        counters.computeIfPresent(filmId, (id, counts) -> {
+            if (counts.get(slot) > 0) {
+                counts.decrementAndGet(slot);
+            }
+            return counts;
+        });
+    }
+
+    public List<Long> top(Duration window, int limit) {
+        if (clock.millis() / bucketMillis > currentBucket) {
+            roll();
+        }
+        int windowBuckets = (int) Math.min(buckets, Math.ceil((double) window.toMillis() / bucketMillis));
+        long last = currentBucket;
+        Comparator<long[]> byLikes = Comparator.<long[]>comparingLong(entry -> entry[1])
+                .thenComparing(entry -> entry[0], Comparator.reverseOrder());
+        PriorityQueue<long[]> heap = new PriorityQueue<>(limit + 1, byLikes);
+        counters.forEach((filmId, counts) -> {
+            long likes = 0;
+            for (long bucket = last; bucket > last - windowBuckets; bucket--) {
+                likes += counts.get(slot(bucket));
+            }
+            if (likes > 0) {
+                heap.offer(new long[]{filmId, likes});
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            }
+        });
+        List<Long> films = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            films.add(heap.poll()[0]);
+        }
+        Collections.reverse(films);
+        return films;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.trending.roll-interval:PT1M}")
+    public synchronized void roll() {
+        long now = clock.millis() / bucketMillis;
+        long previous = currentBucket;
+        if (now <= previous) {
+            return;
+        }
+        long stale = Math.min(now - previous, buckets);
+        for (Long filmId : counters.keySet()) {
+            counters.computeIfPresent(filmId, (id, counts) -> {
+                for (long bucket = now - stale + 1; bucket <= now; bucket++) {
+                    counts.set(slot(bucket), 0);
+                }
+                return isEmpty(counts) ? null : counts;
+            });
+        }
+        currentBucket = now;
+        log.debug("Корзины трендов сдвинуты на {}, фильмов с лайками: {}", stale, counters.size());
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) buckets);
+    }
+
+    private static boolean isEmpty(AtomicLongArray counts) {
+        for (int i = 0; i < counts.length(); i++) {
+            if (counts.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
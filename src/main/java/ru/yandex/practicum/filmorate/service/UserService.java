@@ -9,7 +9,6 @@ import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -17,9 +16,11 @@ import java.util.stream.Collectors;
 public class UserService {
 
     private final UserStorage userStorage;
+    private final ResourceVersions versions;
 
     public void createUser(User user) {
-        userStorage.createUsers(user);
+        User created = userStorage.createUsers(user);
+        versions.userChanged(created.getId());
     }
 
     public void updateUser(User user) {
@@ -27,11 +28,12 @@ public class UserService {
             log.error("нет айди");
             throw new ValidationException("Id должен быть указан");
         }
-        if (userStorage.findUser(Math.toIntExact(user.getId())) == null) {
+        if (!userStorage.existsById(user.getId())) {
             log.error("ошибка с id {}", user.getId());
             throw new NotFoundException("Пользователь с id = " + user.getId() + " не найден");
         }
         userStorage.updateUser(user);
+        versions.userChanged(user.getId());
     }
 
     public User findUser(int id) {
@@ -45,11 +47,12 @@ public class UserService {
     public void addFriend(int firstId, int secondId) {
         log.info("Пользователь {} пытается добавить в друзья пользователя {}", firstId, secondId);
         try {
-            if ((userStorage.findUser(firstId) == null) || (userStorage.findUser(secondId) == null)) {
+            if (!userStorage.existAll(List.of((long) firstId, (long) secondId))) {
                 log.error("ошибка с id  {}", firstId);
                 throw new NotFoundException("Таких id найдено");
             }
             userStorage.addFriends((long) firstId, (long) secondId);
+            versions.userChanged(firstId);
             log.info("Добавление в друзья удалось");
         } catch (NotFoundException e) {
             log.warn("Не удалось добавить пользователей в друзья: {}", e.getMessage());
@@ -59,17 +62,18 @@ public class UserService {
 
     public void deleteFriend(int firstId, int secondId) {
         log.info("Пользователь {} пытается удалить пользователя {} из друзей", firstId, secondId);
-        if ((userStorage.findUser(firstId) == null) || (userStorage.findUser(secondId) == null)) {
+        if (!userStorage.existAll(List.of((long) firstId, (long) secondId))) {
             log.error("ошибка с id  {}", firstId);
             throw new NotFoundException("Таких id найдено");
         }
         userStorage.removeFriends((long) firstId, (long) secondId);
+        versions.userChanged(firstId);
         log.info("Удаление из друзей удалось");
     }
 
     public List<User> getFriends(int id) {
         log.info("Попытка получить друзей пользователя {}", id);
-        if (userStorage.findUser(id) == null) {
+        if (!userStorage.existsById(id)) {
             log.error("ошибка с id  {}", id);
             throw new NotFoundException("Такого id найдено");
         }
@@ -79,12 +83,12 @@ public class UserService {
     public List<User> getMutualFriends(int firstId, int secondId) {
         log.info("Попытка получить общих друзей пользователей {} и {}", firstId, secondId);
         try {
-            User firstUser = userStorage.findUser(firstId);
-            User secondUser = userStorage.findUser(secondId);
+            if (!userStorage.existAll(List.of((long) firstId, (long) secondId))) {
+                log.error("ошибка с id  {} или {}", firstId, secondId);
+                throw new NotFoundException("Таких id найдено");
+            }
             log.info("Получение общих друзей");
-            return firstUser.getFriends().stream()
-                    .filter(secondUser.getFriends()::contains).map(userStorage::findUser)
-                    .collect(Collectors.toList());
+            return userStorage.getCommonFriends((long) firstId, (long) secondId);
         } catch (NotFoundException e) {
             log.warn("Не удалось получить общих друзей: {}", e.getMessage());
             throw e;
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс "id -> отсортированный массив связанных id".
+ * Массивы не изменяются после публикации, поэтому чтение не требует блокировок.
+ */
+public class SortedIdIndex {
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<Long, long[]> index = new ConcurrentHashMap<>();
+
+    public static boolean contains(long[] sortedIds, long id) {
+        return Arrays.binarySearch(sortedIds, id) >= 0;
+    }
+
+    public static long[] intersect(long[] first, long[] second) {
+        long[] common = new long[Math.min(first.length, second.length)];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                common[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+
+    public void put(long key, long[] sortedIds) {
+        index.put(key, sortedIds);
+    }
+
+    public void clear() {
+        index.clear();
+    }
+
+    public void add(long key, long id) {
+        index.compute(key, (k, ids) -> {
+            if (ids == null) {
+                return new long[]{id};
+            }
+            int position = Arrays.binarySearch(ids, id);
+            if (position >= 0) {
+                return ids;
+            }
+            int insertAt = -position - 1;
+            long[] updated = new long[ids.length + 1];
+            System.arraycopy(ids, 0, updated, 0, insertAt);
+            updated[insertAt] = id;
+            System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+            return updated;
+        });
+    }
+
+    public void remove(long key, long id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            int position = Arrays.binarySearch(ids, id);
+            if (position < 0) {
+                return ids;
+            }
+            if (ids.length == 1) {
+                return null;
+            }
+            long[] updated = new long[ids.length - 1];
+            System.arraycopy(ids, 0, updated, 0, position);
+            System.arraycopy(ids, position + 1, updated, position, ids.length - position - 1);
+            return updated;
+        });
+    }
+
+    public long[] get(long key) {
+        return index.getOrDefault(key, EMPTY);
+    }
+
+    public int size() {
+        return index.size();
+    }
+}
@@ -0,0 +1,391 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш фильмов поверх FilmDbStorage с ограничением по размеру и времени жизни записи.
+ * Записи лежат в ConcurrentHashMap, поэтому чтение и проверка наличия идут без общей блокировки.
+ * При превышении размера один поток вытесняет давно не читанные записи.
+ * Любое изменение фильма или его лайков удаляет фильм из кэша.
+ * Наружу отдаются копии, чтобы изменения у вызывающего кода не попадали в кэш.
+ */
+@Slf4j
+@Component
+@Primary
+public class CachingFilmStorage implements FilmStorage, MeterBinder {
+    private final FilmDbStorage filmDbStorage;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Long, CachedFilm> cache = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CachingFilmStorage(FilmDbStorage filmDbStorage,
+                              @Value("${filmorate.film-cache.max-size:10000}") int maxSize,
+                              @Value("${filmorate.film-cache.ttl:PT10M}") Duration ttl) {
+        this.filmDbStorage = filmDbStorage;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public Film findFilm(int filmId) {
+        return findFilm(filmId, true);
+    }
+
+    /**
+     * Фильм без лайков можно отдать из любой записи кэша. Запись, загруженная без лайков,
+     * для запроса с лайками считается промахом и перезаписывается полной.
+     */
+    @Override
+    public Film findFilm(int filmId, boolean withLikes) {
+        long id = filmId;
+        Film cached = cached(id, withLikes);
+        if (cached != null) {
+            return cached;
+        }
+        misses.incrementAndGet();
+        long version = invalidations.get();
+        Film film = filmDbStorage.findFilm(filmId, withLikes);
+        if (film != null) {
+            store(film, version);
+        }
+        return film;
+    }
+
+    /**
+     * Без лайков фильмы берутся из кэша, а недостающие читаются из базы одним запросом без лайков
+     * и кладутся в кэш.
+     */
+    @Override
+    public List<Film> findFilmsByIds(Collection<Long> filmIds, boolean withLikes) {
+        if (withLikes) {
+            return filmDbStorage.findFilmsByIds(filmIds, true);
+        }
+        List<Film> films = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long filmId : filmIds) {
+            Film cached = cached(filmId, false);
+            if (cached == null) {
+                missing.add(filmId);
+            } else {
+                films.add(cached);
+            }
+        }
+        if (!missing.isEmpty()) {
+            misses.addAndGet(missing.size());
+            long version = invalidations.get();
+            for (Film film : filmDbStorage.findFilmsByIds(missing, false)) {
+                store(film, version);
+                films.add(film);
+            }
+        }
+        return films;
+    }
+
+    @Override
+    public boolean existsById(long filmId) {
+        return isCached(filmId) || filmDbStorage.existsById(filmId);
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> filmIds) {
+        Set<Long> existing = new HashSet<>();
+        List<Long> unknown = new ArrayList<>();
+        for (Long filmId : filmIds) {
+            if (isCached(filmId)) {
+                existing.add(filmId);
+            } else {
+                unknown.add(filmId);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            existing.addAll(filmDbStorage.findExistingIds(unknown));
+        }
+        return existing;
+    }
+
+    @Override
+    public List<Film> allFilms(boolean withLikes) {
+        return filmDbStorage.allFilms(withLikes);
+    }
+
+    @Override
+    public List<Film> findFilms(long afterId, int limit, boolean withLikes) {
+        return filmDbStorage.findFilms(afterId, limit, withLikes);
+    }
+
+    @Override
+    public Film updateFilm(Film newFilm) {
+        Film film = filmDbStorage.updateFilm(newFilm);
+        invalidate(film.getId());
+        return film;
+    }
+
+    @Override
+    public Film createFilm(Film film) {
+        return filmDbStorage.createFilm(film);
+    }
+
+    @Override
+    public List<Film> createFilms(List<Film> films) {
+        return filmDbStorage.createFilms(films);
+    }
+
+    @Override
+    public List<Film> getTopFilms(int limit) {
+        return filmDbStorage.getTopFilms(limit);
+    }
+
+    @Override
+    public List<Film> getTopFilms(int limit, Long genreId, Integer year) {
+        return filmDbStorage.getTopFilms(limit, genreId, year);
+    }
+
+    @Override
+    public Instant addLike(Long id, Long userId) {
+        try {
+            return filmDbStorage.addLike(id, userId);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public Optional<Instant> removeLike(Long id, Long userId) {
+        try {
+            return filmDbStorage.removeLike(id, userId);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public int[] addLikes(List<Like> likes) {
+        try {
+            return filmDbStorage.addLikes(likes);
+        } finally {
+            likes.forEach(like -> invalidate(like.getFilmId()));
+        }
+    }
+
+    @Override
+    public int[] removeLikes(List<Like> likes) {
+        try {
+            return filmDbStorage.removeLikes(likes);
+        } finally {
+            likes.forEach(like -> invalidate(like.getFilmId()));
+        }
+    }
+
+    @Override
+    public Map<Like, Instant> findLikeTimes(List<Like> likes) {
+        return filmDbStorage.findLikeTimes(likes);
+    }
+
+    @Override
+    public List<User> getLikes(Long filmId) {
+        return filmDbStorage.getLikes(filmId);
+    }
+
+    @Override
+    public int reconcileLikesCount() {
+        int fixed = filmDbStorage.reconcileLikesCount();
+        if (fixed > 0) {
+            invalidateAll();
+        }
+        return fixed;
+    }
+
+    @Override
+    public Map<Long, Long> getLikesCountByFilm() {
+        return filmDbStorage.getLikesCountByFilm();
+    }
+
+    @Override
+    public Map<Long, long[]> getLikedFilmsByUser() {
+        return filmDbStorage.getLikedFilmsByUser();
+    }
+
+    @Override
+    public void forEachLikeSince(Instant since, BiConsumer<Long, Instant> consumer) {
+        filmDbStorage.forEachLikeSince(since, consumer);
+    }
+
+    private boolean isCached(long filmId) {
+        return cache.containsKey(filmId);
+    }
+
+    /**
+     * @return копия фильма из кэша или null, если его нет, время жизни записи истекло
+     * или нужны лайки, а запись загружена без них
+     */
+    private Film cached(long filmId, boolean withLikes) {
+        CachedFilm cached = cache.get(filmId);
+        if (cached == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - cached.loadedAt() >= ttlNanos) {
+            if (cache.remove(filmId, cached)) {
+                evictions.incrementAndGet();
+            }
+            return null;
+        }
+        if (withLikes && !cached.withLikes()) {
+            return null;
+        }
+        cached.touch(now);
+        hits.incrementAndGet();
+        Film film = copyOf(cached.film());
+        if (!withLikes) {
+            film.setLike(null);
+        }
+        return film;
+    }
+
+    /**
+     * Кладёт фильм в кэш, если с момента начала загрузки не было инвалидаций.
+     * Запись с лайками не заменяется записью без них.
+     */
+    private void store(Film film, long version) {
+        CachedFilm loaded = new CachedFilm(copyOf(film), System.nanoTime());
+        // invalidate увеличивает счётчик до удаления, поэтому устаревший фильм сюда не попадёт
+        cache.compute(film.getId(), (id, current) -> version != invalidations.get()
+                || current != null && current.withLikes() && !loaded.withLikes() ? current : loaded);
+        evictIfFull();
+    }
+
+    /**
+     * Вытесняет десятую часть кэша с самым давним чтением. Если вытеснение уже идёт в другом потоке,
+     * текущий поток его не ждёт.
+     */
+    private void evictIfFull() {
+        if (cache.size() <= maxSize || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int excess = cache.size() - maxSize;
+            if (excess <= 0) {
+                return;
+            }
+            cache.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccess()))
+                    .limit(excess + maxSize / 10)
+                    .forEach(entry -> {
+                        if (cache.remove(entry.getKey(), entry.getValue())) {
+                            evictions.incrementAndGet();
+                        }
+                    });
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static Film copyOf(Film film) {
+        return film.toBuilder()
+                .genres(film.getGenres() == null ? null : film.getGenres().stream()
+                        .map(genre -> new Genre(genre.getId(), genre.getName()))
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .mpa(new Mpa(film.getMpa().getId(), film.getMpa().getName()))
+                .build();
+    }
+
+    public void invalidate(Long filmId) {
+        invalidations.incrementAndGet();
+        cache.remove(filmId);
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.clear();
+        log.info("Кэш фильмов очищен");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("filmorate.film-cache.hits", hits, AtomicLong::get).register(registry);
+        FunctionCounter.builder("filmorate.film-cache.misses", misses, AtomicLong::get).register(registry);
+        FunctionCounter.builder("filmorate.film-cache.evictions", evictions, AtomicLong::get).register(registry);
+        Gauge.builder("filmorate.film-cache.size", this, CachingFilmStorage::size).register(registry);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private static final class CachedFilm {
+        private final Film film;
+        private final long loadedAt;
+        private volatile long lastAccess;
+
+        private CachedFilm(Film film, long loadedAt) {
+            this.film = film;
+            this.loadedAt = loadedAt;
+            this.lastAccess = loadedAt;
+        }
+
+        Film film() {
+            return film;
+        }
+
+        long loadedAt() {
+            return loadedAt;
+        }
+
+        long lastAccess() {
+            return lastAccess;
+        }
+
+        boolean withLikes() {
+            return film.getLike() != null;
+        }
+
+        void touch(long now) {
+            lastAccess = now;
+        }
+    }
+}
@@ -1,27 +1,50 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.AllArgsConstructor;
-import org.springframework.context.annotation.Primary;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.DataClassRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 @AllArgsConstructor
 @Component
-@Primary
+@Timed(value = "filmorate.repository", extraTags = {"repository", "film"})
 public class FilmDbStorage implements FilmStorage {
+    private static final String FILM_SELECT = "SELECT f.id, " +
+            "f.name, " +
+            "f.description, " +
+            "f.release_date, " +
+            "f.duration, " +
+            "f.likes_count, " +
+            "mr.id AS mpa_id, " +
+            "mr.name AS mpa_name " +
+            "FROM films AS f " +
+            "LEFT JOIN RATING_MPA AS mr ON (f.RATING_MPA_ID  = mr.ID) ";
+    private static final int IN_CHUNK_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
     private final FilmRowMapper mapper;
 
@@ -50,6 +73,48 @@ public class FilmDbStorage implements FilmStorage {
         return film;
     }
 
+    @Override
+    @Transactional
+    public List<Film> createFilms(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(
+                "INSERT INTO films (name, description, release_date, duration, rating_mpa_id)values (?, ?, ?, ? ,?)",
+                new String[]{"id"}), new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement stmt, int i) throws SQLException {
+                        Film film = films.get(i);
+                        stmt.setString(1, film.getName());
+                        stmt.setString(2, film.getDescription());
+                        stmt.setDate(3, Date.valueOf(film.getReleaseDate()));
+                        stmt.setInt(4, film.getDuration());
+                        stmt.setLong(5, film.getMpa().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<Object[]> genreArgs = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            if (film.getGenres() != null) {
+                for (Genre genre : new LinkedHashSet<>(film.getGenres())) {
+                    genreArgs.add(new Object[]{film.getId(), genre.getId()});
+                }
+            }
+        }
+        if (!genreArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate("MERGE INTO films_genre (film_id, genre_id) VALUES (?, ?)", genreArgs);
+        }
+        return films;
+    }
+
     @Override
     public Film updateFilm(Film film) {
         String sqlQuery =
@@ -68,58 +133,174 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public Film findFilm(int filmId) {
-        List<Film> films = jdbcTemplate.query("SELECT f.id, " +
-                "f.name, " +
-                "f.description, " +
-                "f.release_date, " +
-                "f.duration, " +
-                "l.USER_ID AS like_id, " +
-                "mr.id AS mpa_id, " +
-                "mr.name AS mpa_name, " +
-                "g.id AS genre_id , " +
-                "g.name AS genre_name " +
-                "FROM films AS f " +
-                "LEFT JOIN LIKES AS l ON (f.ID = l.FILM_ID) " +
-                "LEFT JOIN RATING_MPA AS mr ON (f.RATING_MPA_ID  = mr.ID) " +
-                "LEFT JOIN FILMS_GENRE AS fg ON (f.ID  = fg.film_id) " +
-                "LEFT JOIN GENRES AS g ON (fg.genre_id = g.ID)" +
-                "WHERE F.ID = ?;", mapper, filmId);
+        return findFilm(filmId, true);
+    }
+
+    @Override
+    public Film findFilm(int filmId, boolean withLikes) {
+        List<Film> films = jdbcTemplate.query(FILM_SELECT + "WHERE f.id = ?;", mapper, filmId);
         if (films.size() == 0) {
             return null;
         }
-        return films.get(0);
+        return hydrate(films, withLikes).get(0);
+    }
+
+    @Override
+    public List<Film> findFilmsByIds(Collection<Long> filmIds, boolean withLikes) {
+        List<Film> films = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(new HashSet<>(filmIds));
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            films.addAll(jdbcTemplate.query(FILM_SELECT + "WHERE f.id IN (" +
+                    String.join(",", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY f.id;",
+                    mapper, chunk.toArray()));
+        }
+        return hydrate(films, withLikes);
+    }
+
+    @Override
+    public boolean existsById(long filmId) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM films WHERE id = ? LIMIT 1", Integer.class, filmId).isEmpty();
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> filmIds) {
+        Set<Long> existing = new HashSet<>();
+        List<Long> ids = new ArrayList<>(new HashSet<>(filmIds));
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            existing.addAll(jdbcTemplate.queryForList("SELECT id FROM films WHERE id IN (" +
+                    String.join(",", Collections.nCopies(chunk.size(), "?")) + ")", Long.class, chunk.toArray()));
+        }
+        return existing;
+    }
+
+    @Override
+    public List<Film> allFilms(boolean withLikes) {
+        return hydrate(jdbcTemplate.query(FILM_SELECT + "ORDER BY f.id;", mapper), withLikes);
     }
 
     @Override
-    public List<Film> allFilms() {
-        List<Film> films = jdbcTemplate.query("SELECT f.id, " +
-                "f.name, " +
-                "f.description, " +
-                "f.release_date, " +
-                "f.duration, " +
-                "l.USER_ID AS like_id, " +
-                "mr.id AS mpa_id, " +
-                "mr.name AS mpa_name, " +
-                "g.id AS genre_id , " +
-                "g.name AS genre_name " +
-                "FROM films AS f " +
-                "LEFT JOIN LIKES AS l ON (f.ID = l.FILM_ID) " +
-                "LEFT JOIN RATING_MPA AS mr ON (f.RATING_MPA_ID  = mr.ID) " +
-                "LEFT JOIN FILMS_GENRE AS fg ON (f.ID  = fg.film_id) " +
-                "LEFT JOIN GENRES AS g ON (fg.genre_id = g.ID);", mapper);
-        Set<Film> uniqueFilms = new TreeSet<>(Comparator.comparing(Film::getId));
-        uniqueFilms.addAll(films);
-        return new ArrayList<>(uniqueFilms);
+    public List<Film> findFilms(long afterId, int limit, boolean withLikes) {
+        return hydrate(jdbcTemplate.query(FILM_SELECT + "WHERE f.id > ? ORDER BY f.id LIMIT ?;",
+                mapper, afterId, limit), withLikes);
+    }
+
+    private List<Film> hydrate(List<Film> films) {
+        return hydrate(films, true);
+    }
+
+    /**
+     * Догружает жанры и, если нужно, лайки фильмов. Без лайков поле like остаётся null,
+     * а количество лайков берётся из счётчика likes_count.
+     */
+    private List<Film> hydrate(List<Film> films, boolean withLikes) {
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (Film film : films) {
+            filmsById.put(film.getId(), film);
+        }
+        Map<Long, IdSet.Builder> likes = new HashMap<>();
+        List<Long> ids = new ArrayList<>(filmsById.keySet());
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query("SELECT fg.film_id, g.id, g.name " +
+                    "FROM films_genre AS fg " +
+                    "JOIN genres AS g ON (fg.genre_id = g.id) " +
+                    "WHERE fg.film_id IN (" + in + ") " +
+                    "ORDER BY fg.film_id, g.id;", (RowCallbackHandler) rs ->
+                    filmsById.get(rs.getLong("film_id")).getGenres().add(Genre.builder()
+                            .id(rs.getLong("id"))
+                            .name(rs.getString("name"))
+                            .build()), chunk.toArray());
+            if (withLikes) {
+                jdbcTemplate.query("SELECT film_id, user_id FROM likes WHERE film_id IN (" + in + ");",
+                        (RowCallbackHandler) rs -> likes.computeIfAbsent(rs.getLong("film_id"),
+                                id -> IdSet.builder()).add(rs.getLong("user_id")),
+                        chunk.toArray());
+            }
+        }
+        for (Film film : films) {
+            IdSet.Builder filmLikes = likes.get(film.getId());
+            film.setLike(!withLikes ? null : filmLikes == null ? IdSet.empty() : filmLikes.build());
+        }
+        return films;
     }
 
     @Override
-    public void addLike(Long id, Long userId) {
-        jdbcTemplate.update("INSERT INTO likes (film_id, user_id)values (?, ?);", id, userId);
+    @Transactional
+    public Instant addLike(Long id, Long userId) {
+        Timestamp likedAt = jdbcTemplate.queryForObject("SELECT created_at " +
+                "FROM FINAL TABLE (INSERT INTO likes (film_id, user_id) VALUES (?, ?));", Timestamp.class, id, userId);
+        jdbcTemplate.update("UPDATE films SET likes_count = likes_count + 1 WHERE id = ?;", id);
+        return likedAt.toInstant();
     }
 
     @Override
-    public void removeLike(Long id, Long userId) {
-        jdbcTemplate.update("DELETE FROM likes WHERE film_id = ? AND user_id = ?;", id, userId);
+    @Transactional
+    public Optional<Instant> removeLike(Long id, Long userId) {
+        List<Timestamp> removed = jdbcTemplate.queryForList("SELECT created_at " +
+                "FROM OLD TABLE (DELETE FROM likes WHERE film_id = ? AND user_id = ?);", Timestamp.class, id, userId);
+        if (removed.isEmpty()) {
+            return Optional.empty();
+        }
+        jdbcTemplate.update("UPDATE films SET likes_count = likes_count - 1 WHERE id = ?;", id);
+        return Optional.of(removed.get(0).toInstant());
+    }
+
+    @Override
+    @Transactional
+    public int[] addLikes(List<Like> likes) {
+        int[] inserted = jdbcTemplate.batchUpdate("MERGE INTO likes AS l " +
+                        "USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) AS s (film_id, user_id) " +
+                        "ON (l.film_id = s.film_id AND l.user_id = s.user_id) " +
+                        "WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (s.film_id, s.user_id)",
+                likes.stream()
+                        .map(like -> new Object[]{like.getFilmId(), like.getUserId()})
+                        .toList());
+        updateLikesCount(likes, inserted, 1);
+        return inserted;
+    }
+
+    @Override
+    @Transactional
+    public int[] removeLikes(List<Like> likes) {
+        int[] deleted = jdbcTemplate.batchUpdate("DELETE FROM likes WHERE film_id = ? AND user_id = ?",
+                likes.stream()
+                        .map(like -> new Object[]{like.getFilmId(), like.getUserId()})
+                        .toList());
+        updateLikesCount(likes, deleted, -1);
+        return deleted;
+    }
+
+    @Override
+    public Map<Like, Instant> findLikeTimes(List<Like> likes) {
+        Map<Like, Instant> times = new HashMap<>();
+        for (int from = 0; from < likes.size(); from += IN_CHUNK_SIZE) {
+            List<Like> chunk = likes.subList(from, Math.min(from + IN_CHUNK_SIZE, likes.size()));
+            jdbcTemplate.query("SELECT film_id, user_id, created_at FROM likes WHERE (film_id, user_id) IN (" +
+                            String.join(",", Collections.nCopies(chunk.size(), "(?, ?)")) + ")",
+                    (RowCallbackHandler) rs -> times.put(new Like(rs.getLong("film_id"), rs.getLong("user_id")),
+                            rs.getTimestamp("created_at").toInstant()),
+                    chunk.stream().flatMap(like -> Stream.of(like.getFilmId(), like.getUserId())).toArray());
+        }
+        return times;
+    }
+
+    private void updateLikesCount(List<Like> likes, int[] affected, int sign) {
+        Map<Long, Long> deltas = new HashMap<>();
+        for (int i = 0; i < likes.size(); i++) {
+            if (affected[i] > 0) {
+                deltas.merge(likes.get(i).getFilmId(), (long) sign, Long::sum);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE films SET likes_count = likes_count + ? WHERE id = ?",
+                deltas.entrySet().stream()
+                        .map(delta -> new Object[]{delta.getValue(), delta.getKey()})
+                        .toList());
     }
 
     @Override
@@ -134,13 +315,81 @@ public class FilmDbStorage implements FilmStorage {
     @Override
     public List<Film> getTopFilms(int limit) {
         return jdbcTemplate.query(
-                "SELECT ID, NAME, cnt_like " +
-                        "FROM PUBLIC.FILMS f " +
-                        "LEFT JOIN (select FILM_ID, COUNT(user_id) cnt_like from likes group by FILM_ID) l ON (f.id = l.FILM_ID) " +
-                        "ORDER BY l.cnt_like DESC " +
+                "SELECT ID, NAME, likes_count " +
+                        "FROM PUBLIC.FILMS " +
+                        "ORDER BY likes_count DESC, ID " +
                         "LIMIT ?", new DataClassRowMapper<>(Film.class), limit);
     }
 
+    /**
+     * Фильтр по жанру задан подзапросом, чтобы H2 начинал с films_genre_genre_idx и читал только фильмы жанра,
+     * а не обходил весь рейтинг по films_likes_count_idx в поисках редкого жанра.
+     */
+    @Override
+    public List<Film> getTopFilms(int limit, Long genreId, Integer year) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (genreId != null) {
+            conditions.add("f.id IN (SELECT film_id FROM films_genre WHERE genre_id = ?)");
+            args.add(genreId);
+        }
+        if (year != null) {
+            conditions.add("f.release_date >= ? AND f.release_date < ?");
+            args.add(Date.valueOf(LocalDate.of(year, 1, 1)));
+            args.add(Date.valueOf(LocalDate.of(year + 1, 1, 1)));
+        }
+        StringBuilder sql = new StringBuilder(FILM_SELECT);
+        if (!conditions.isEmpty()) {
+            sql.append("WHERE ").append(String.join(" AND ", conditions)).append(' ');
+        }
+        sql.append("ORDER BY f.likes_count DESC, f.id LIMIT ?");
+        args.add(limit);
+        return hydrate(jdbcTemplate.query(sql.toString(), mapper, args.toArray()));
+    }
+
+    @Override
+    @Transactional
+    public int reconcileLikesCount() {
+        return jdbcTemplate.update("UPDATE films f " +
+                "SET likes_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id) " +
+                "WHERE likes_count <> (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id);");
+    }
+
+    @Override
+    public Map<Long, Long> getLikesCountByFilm() {
+        Map<Long, Long> likesCount = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, COUNT(user_id) AS cnt FROM likes GROUP BY film_id",
+                (RowCallbackHandler) rs -> likesCount.put(rs.getLong("film_id"), rs.getLong("cnt")));
+        return likesCount;
+    }
+
+    @Override
+    public Map<Long, long[]> getLikedFilmsByUser() {
+        Map<Long, long[]> likedFilms = new HashMap<>();
+        long[] currentUser = {0};
+        List<Long> films = new ArrayList<>();
+        jdbcTemplate.query("SELECT user_id, film_id FROM likes ORDER BY user_id, film_id", (RowCallbackHandler) rs -> {
+            long userId = rs.getLong("user_id");
+            if (userId != currentUser[0] && !films.isEmpty()) {
+                likedFilms.put(currentUser[0], films.stream().mapToLong(Long::longValue).toArray());
+                films.clear();
+            }
+            currentUser[0] = userId;
+            films.add(rs.getLong("film_id"));
+        });
+        if (!films.isEmpty()) {
+            likedFilms.put(currentUser[0], films.stream().mapToLong(Long::longValue).toArray());
+        }
+        return likedFilms;
+    }
+
+    @Override
+    public void forEachLikeSince(Instant since, BiConsumer<Long, Instant> consumer) {
+        jdbcTemplate.query("SELECT film_id, created_at FROM likes WHERE created_at >= ?",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getLong("film_id"), rs.getTimestamp("created_at").toInstant()),
+                Timestamp.from(since));
+    }
+
     public boolean checkLikeOnFilm(Long filmId, Long userId) {
         if ((jdbcTemplate.query("SELECT user_id FROM likes WHERE film_id = ? AND user_id = ?",
                 new ColumnMapRowMapper(), filmId, userId)).contains(userId)) {
@@ -1,24 +1,106 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 public interface FilmStorage {
-    List<Film> allFilms();
+    default List<Film> allFilms() {
+        return allFilms(true);
+    }
+
+    /**
+     * @param withLikes загружать ли id пользователей, поставивших лайк; без них заполняется только likesCount
+     */
+    List<Film> allFilms(boolean withLikes);
+
+    default List<Film> findFilms(long afterId, int limit) {
+        return findFilms(afterId, limit, true);
+    }
+
+    List<Film> findFilms(long afterId, int limit, boolean withLikes);
 
     Film findFilm(int filmId);
 
+    Film findFilm(int filmId, boolean withLikes);
+
+    default List<Film> findFilmsByIds(Collection<Long> filmIds) {
+        return findFilmsByIds(filmIds, true);
+    }
+
+    /**
+     * @param withLikes загружать ли id пользователей, поставивших лайк; без них заполняется только likesCount
+     */
+    List<Film> findFilmsByIds(Collection<Long> filmIds, boolean withLikes);
+
+    boolean existsById(long filmId);
+
+    Set<Long> findExistingIds(Collection<Long> filmIds);
+
+    default boolean existAll(Collection<Long> filmIds) {
+        return findExistingIds(filmIds).containsAll(filmIds);
+    }
+
     Film updateFilm(Film newFilm);
 
     Film createFilm(Film film);
 
+    List<Film> createFilms(List<Film> films);
+
     List<Film> getTopFilms(int limit);
 
-    void addLike(Long id, Long userId);
+    List<Film> getTopFilms(int limit, Long genreId, Integer year);
 
-    void removeLike(Long id, Long userId);
+    /**
+     * @return время поставленного лайка, записанное базой
+     */
+    Instant addLike(Long id, Long userId);
+
+    /**
+     * @return время удалённого лайка или пустой Optional, если лайка не было
+     */
+    Optional<Instant> removeLike(Long id, Long userId);
+
+    int[] addLikes(List<Like> likes);
+
+    int[] removeLikes(List<Like> likes);
+
+    /**
+     * Время, когда были поставлены лайки из списка; отсутствующих лайков в результате нет.
+     */
+    Map<Like, Instant> findLikeTimes(List<Like> likes);
+
+    /**
+     * Время лайков, для которых пакетная запись изменила строку.
+     *
+     * @param affected число изменённых строк для каждого лайка, как его вернул batchUpdate
+     */
+    default Map<Like, Instant> findLikeTimes(List<Like> likes, int[] affected) {
+        List<Like> changed = new ArrayList<>();
+        for (int i = 0; i < likes.size(); i++) {
+            if (affected[i] > 0) {
+                changed.add(likes.get(i));
+            }
+        }
+        return changed.isEmpty() ? Map.of() : findLikeTimes(changed);
+    }
 
     List<User> getLikes(Long filmId);
+
+    int reconcileLikesCount();
+
+    Map<Long, Long> getLikesCountByFilm();
+
+    Map<Long, long[]> getLikedFilmsByUser();
+
+    void forEachLikeSince(Instant since, BiConsumer<Long, Instant> consumer);
 }
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.storage.genre;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Component
+@Primary
+@RequiredArgsConstructor
+public class CachedGenreStorage implements GenreStorage {
+    private final GenreDbStorage genreDbStorage;
+    private volatile Map<Long, Genre> genres;
+
+    @Override
+    public List<Genre> getAll() {
+        return new ArrayList<>(genres().values());
+    }
+
+    @Override
+    public Genre getById(Long id) {
+        Genre genre = genres().get(id);
+        if (genre == null) {
+            throw new NotFoundException("Жанр с id = " + id + " не найден");
+        }
+        return genre;
+    }
+
+    @Override
+    public List<Genre> getGenresOfFilm(Long id) {
+        return genreDbStorage.getGenresOfFilm(id);
+    }
+
+    @Override
+    public boolean checkGenresExists(List<Genre> genres) {
+        Map<Long, Genre> cached = genres();
+        for (Genre genre : genres) {
+            if (!cached.containsKey(genre.getId())) {
+                throw new NotFoundException("Жанр с id = " + genre.getId() + " отсутствует");
+            }
+        }
+        return true;
+    }
+
+    public void reload() {
+        Map<Long, Genre> loaded = new LinkedHashMap<>();
+        for (Genre genre : genreDbStorage.getAll()) {
+            loaded.put(genre.getId(), genre);
+        }
+        genres = loaded;
+        log.info("Справочник жанров загружен, записей: {}", loaded.size());
+    }
+
+    private Map<Long, Genre> genres() {
+        Map<Long, Genre> cached = genres;
+        if (cached == null) {
+            synchronized (this) {
+                if (genres == null) {
+                    reload();
+                }
+                cached = genres;
+            }
+        }
+        return cached;
+    }
+}
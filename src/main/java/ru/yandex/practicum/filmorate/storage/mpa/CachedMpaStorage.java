@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.storage.mpa;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Component
+@Primary
+@RequiredArgsConstructor
+public class CachedMpaStorage implements MpaStorage {
+    private final MpaDbStorage mpaDbStorage;
+    private volatile Map<Long, Mpa> ratings;
+
+    @Override
+    public List<Mpa> getAll() {
+        return new ArrayList<>(ratings().values());
+    }
+
+    @Override
+    public Mpa getById(Long id) {
+        return ratings().get(id);
+    }
+
+    @Override
+    public Mpa getMpaOfFilm(Long id) {
+        return mpaDbStorage.getMpaOfFilm(id);
+    }
+
+    public void reload() {
+        Map<Long, Mpa> loaded = new LinkedHashMap<>();
+        for (Mpa mpa : mpaDbStorage.getAll()) {
+            loaded.put(mpa.getId(), mpa);
+        }
+        ratings = loaded;
+        log.info("Справочник рейтингов MPA загружен, записей: {}", loaded.size());
+    }
+
+    private Map<Long, Mpa> ratings() {
+        Map<Long, Mpa> cached = ratings;
+        if (cached == null) {
+            synchronized (this) {
+                if (ratings == null) {
+                    reload();
+                }
+                cached = ratings;
+            }
+        }
+        return cached;
+    }
+}
@@ -1,7 +1,6 @@
 package ru.yandex.practicum.filmorate.storage.mpa;
 
 import lombok.AllArgsConstructor;
-import org.springframework.context.annotation.Primary;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.DataClassRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -12,7 +11,6 @@ import java.util.List;
 
 @AllArgsConstructor
 @Component
-@Primary
 public class MpaDbStorage implements MpaStorage {
     private final JdbcTemplate jdbcTemplate;
 
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import ru.yandex.practicum.filmorate.storage.SortedIdIndex;
+
+/**
+ * Граф дружбы в памяти: для каждого пользователя хранится отсортированный массив id друзей.
+ */
+public class FriendGraph extends SortedIdIndex {
+
+    public void addFriend(long userId, long friendId) {
+        add(userId, friendId);
+    }
+
+    public void removeFriend(long userId, long friendId) {
+        remove(userId, friendId);
+    }
+
+    public long[] friendsOf(long userId) {
+        return get(userId);
+    }
+
+    public long[] commonFriends(long firstId, long secondId) {
+        return intersect(friendsOf(firstId), friendsOf(secondId));
+    }
+}
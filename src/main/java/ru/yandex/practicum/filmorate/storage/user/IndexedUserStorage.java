@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Хранилище пользователей, которое отвечает на запросы о друзьях из графа в памяти.
+ * Граф строится один раз целиком и только потом публикуется, поэтому читатели не видят его пустым.
+ * Включается свойством filmorate.friend-graph.enabled=true.
+ */
+@Slf4j
+@Component
+@Primary
+@ConditionalOnProperty(name = "filmorate.friend-graph.enabled", havingValue = "true")
+public class IndexedUserStorage implements UserStorage {
+    private final UserDbStorage userDbStorage;
+    private volatile FriendGraph graph;
+
+    public IndexedUserStorage(UserDbStorage userDbStorage) {
+        this.userDbStorage = userDbStorage;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        graph();
+    }
+
+    @Override
+    public List<User> findAllUsers() {
+        return userDbStorage.findAllUsers();
+    }
+
+    @Override
+    public User findUser(int userId) {
+        List<User> users = userDbStorage.findUsers(List.of((long) userId));
+        if (users.isEmpty()) {
+            return null;
+        }
+        User user = users.get(0);
+        user.setFriends(IdSet.of(graph().friendsOf(userId)));
+        return user;
+    }
+
+    @Override
+    public List<User> findUsers(Collection<Long> userIds) {
+        return userDbStorage.findUsers(userIds);
+    }
+
+    @Override
+    public boolean existsById(long userId) {
+        return userDbStorage.existsById(userId);
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> userIds) {
+        return userDbStorage.findExistingIds(userIds);
+    }
+
+    @Override
+    public User createUsers(User user) {
+        return userDbStorage.createUsers(user);
+    }
+
+    @Override
+    public User updateUser(User newUser) {
+        return userDbStorage.updateUser(newUser);
+    }
+
+    @Override
+    public void addFriends(Long userId, Long friendId) {
+        userDbStorage.addFriends(userId, friendId);
+        graph().addFriend(userId, friendId);
+    }
+
+    @Override
+    public void removeFriends(Long userId, Long friendId) {
+        userDbStorage.removeFriends(userId, friendId);
+        graph().removeFriend(userId, friendId);
+    }
+
+    @Override
+    public List<User> getFriends(Long id) {
+        return findUsers(graph().friendsOf(id));
+    }
+
+    @Override
+    public Map<Long, long[]> getFriendIds(Collection<Long> userIds) {
+        FriendGraph friendGraph = graph();
+        Map<Long, long[]> result = new HashMap<>();
+        for (Long userId : userIds) {
+            long[] friends = friendGraph.friendsOf(userId);
+            if (friends.length > 0) {
+                result.put(userId, friends);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<User> getCommonFriends(Long id, Long friendId) {
+        return findUsers(graph().commonFriends(id, friendId));
+    }
+
+    private List<User> findUsers(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        return userDbStorage.findUsers(Arrays.stream(ids).boxed().toList());
+    }
+
+    private FriendGraph graph() {
+        FriendGraph current = graph;
+        if (current == null) {
+            synchronized (this) {
+                current = graph;
+                if (current == null) {
+                    current = userDbStorage.loadFriendGraph();
+                    graph = current;
+                    log.info("Граф дружбы загружен, пользователей с друзьями: {}", current.size());
+                }
+            }
+        }
+        return current;
+    }
+}
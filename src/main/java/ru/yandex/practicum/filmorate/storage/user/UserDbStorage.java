@@ -1,13 +1,15 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.annotation.Primary;
-import org.springframework.jdbc.core.DataClassRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.IdSet;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.Date;
@@ -17,10 +19,20 @@ import java.util.*;
 @AllArgsConstructor
 @Component
 @Slf4j
-@Primary
+@Timed(value = "filmorate.repository", extraTags = {"repository", "user"})
 public class UserDbStorage implements UserStorage {
+    private static final int IN_CHUNK_SIZE = 1000;
+    private static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> User.builder()
+            .id(rs.getLong("id"))
+            .email(rs.getString("email"))
+            .login(rs.getString("login"))
+            .name(rs.getString("name"))
+            .birthday(rs.getDate("birthday").toLocalDate())
+            .friends(IdSet.empty())
+            .build();
+
     private final JdbcTemplate jdbcTemplate;
-    private final UserRowMapper mapper;
+    private final UserResultSetExtractor extractor;
 
     @Override
     public User createUsers(User user) {
@@ -65,16 +77,86 @@ public class UserDbStorage implements UserStorage {
                 "f.USER2_ID " +
                 "FROM USERS AS u " +
                 "LEFT JOIN FRIENDS AS f ON (f.USER1_ID  = u.ID)" +
-                "WHERE u.id = ?", mapper, userId);
+                "WHERE u.id = ?", extractor, userId);
         if (users.isEmpty()) {
             return null;
         }
         return users.get(0);
     }
 
+    @Override
+    public List<User> findUsers(Collection<Long> userIds) {
+        List<User> users = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(userIds);
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            users.addAll(jdbcTemplate.query("SELECT * FROM users WHERE id IN (" +
+                    String.join(",", Collections.nCopies(chunk.size(), "?")) + ")", USER_MAPPER, chunk.toArray()));
+        }
+        users.sort(Comparator.comparing(User::getId));
+        return users;
+    }
+
+    @Override
+    public Map<Long, long[]> getFriendIds(Collection<Long> userIds) {
+        Map<Long, List<Long>> friends = new HashMap<>();
+        List<Long> ids = new ArrayList<>(new HashSet<>(userIds));
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            jdbcTemplate.query("SELECT user1_id, user2_id FROM friends WHERE status = true AND user1_id IN (" +
+                            String.join(",", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY user1_id, user2_id",
+                    (RowCallbackHandler) rs -> friends.computeIfAbsent(rs.getLong("user1_id"), id -> new ArrayList<>())
+                            .add(rs.getLong("user2_id")),
+                    chunk.toArray());
+        }
+        Map<Long, long[]> result = new HashMap<>();
+        friends.forEach((id, list) -> result.put(id, list.stream().mapToLong(Long::longValue).toArray()));
+        return result;
+    }
+
+    /**
+     * Строит новый граф дружбы по таблице friends; уже опубликованный граф не меняется.
+     */
+    public FriendGraph loadFriendGraph() {
+        FriendGraph graph = new FriendGraph();
+        long[] current = {0};
+        List<Long> friends = new ArrayList<>();
+        jdbcTemplate.query("SELECT user1_id, user2_id FROM friends WHERE status = true ORDER BY user1_id, user2_id",
+                (RowCallbackHandler) rs -> {
+                    long userId = rs.getLong("user1_id");
+                    if (userId != current[0] && !friends.isEmpty()) {
+                        graph.put(current[0], friends.stream().mapToLong(Long::longValue).toArray());
+                        friends.clear();
+                    }
+                    current[0] = userId;
+                    friends.add(rs.getLong("user2_id"));
+                });
+        if (!friends.isEmpty()) {
+            graph.put(current[0], friends.stream().mapToLong(Long::longValue).toArray());
+        }
+        return graph;
+    }
+
+    @Override
+    public boolean existsById(long userId) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM users WHERE id = ? LIMIT 1", Integer.class, userId).isEmpty();
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> userIds) {
+        Set<Long> existing = new HashSet<>();
+        List<Long> ids = new ArrayList<>(new HashSet<>(userIds));
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            existing.addAll(jdbcTemplate.queryForList("SELECT id FROM users WHERE id IN (" +
+                    String.join(",", Collections.nCopies(chunk.size(), "?")) + ")", Long.class, chunk.toArray()));
+        }
+        return existing;
+    }
+
     @Override
     public List<User> findAllUsers() {
-        List<User> users = jdbcTemplate.query("SELECT " +
+        return jdbcTemplate.query("SELECT " +
                 "u.ID, " +
                 "u.EMAIL, " +
                 "u.LOGIN, " +
@@ -82,10 +164,8 @@ public class UserDbStorage implements UserStorage {
                 "u.BIRTHDAY, " +
                 "f.USER2_ID " +
                 "FROM USERS u " +
-                "LEFT JOIN FRIENDS f ON (f.USER1_ID  = u.ID)", mapper);
-        Set<User> uniqueUser = new TreeSet<>(Comparator.comparing(User::getId));
-        uniqueUser.addAll(users);
-        return new ArrayList<>(uniqueUser);
+                "LEFT JOIN FRIENDS f ON (f.USER1_ID  = u.ID) " +
+                "ORDER BY u.ID", extractor);
     }
 
     @Override
@@ -100,21 +180,17 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public List<User> getFriends(Long id) {
-        return jdbcTemplate.query("SELECT * FROM users WHERE id IN (SELECT user2_id FROM friends WHERE user1_id = ? AND status = true)", new DataClassRowMapper<>(User.class), id);
+        return jdbcTemplate.query("SELECT * FROM users WHERE id IN (SELECT user2_id FROM friends WHERE user1_id = ? AND status = true)", USER_MAPPER, id);
     }
 
+    @Override
     public List<User> getCommonFriends(Long id, Long friendId) {
-        String sql = "SELECT * FROM users " +
-                "WHERE id IN (" +
-                "    SELECT user2_id " +
-                "    FROM friends " +
-                "    WHERE user1_id = ? AND status = true " +
-                "    AND user2_id IN (" +
-                "        SELECT user2_id " +
-                "        FROM friends " +
-                "        WHERE user1_id = ? AND status = true" +
-                "    )" +
-                ")";
-        return jdbcTemplate.query(sql, new DataClassRowMapper<>(User.class), id, friendId);
+        String sql = "SELECT u.* " +
+                "FROM friends AS f1 " +
+                "JOIN friends AS f2 ON (f2.user2_id = f1.user2_id AND f2.user1_id = ? AND f2.status = true) " +
+                "JOIN users AS u ON (u.id = f1.user2_id) " +
+                "WHERE f1.user1_id = ? AND f1.status = true " +
+                "ORDER BY u.id";
+        return jdbcTemplate.query(sql, USER_MAPPER, friendId, id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class UserResultSetExtractor implements ResultSetExtractor<List<User>> {
+
+    public List<User> extractData(ResultSet resultSet) throws SQLException {
+        Map<Long, User> userMap = new LinkedHashMap<>();
+        Map<Long, IdSet.Builder> friends = new HashMap<>();
+        while (resultSet.next()) {
+            Long userId = resultSet.getLong("id");
+            User user = userMap.get(userId);
+            if (user == null) {
+                user = User.builder()
+                        .id(userId)
+                        .email(resultSet.getString("email"))
+                        .login(resultSet.getString("login"))
+                        .name(resultSet.getString("name"))
+                        .birthday(resultSet.getDate("birthday").toLocalDate())
+                        .friends(IdSet.empty())
+                        .build();
+                userMap.put(userId, user);
+            }
+            if (resultSet.getLong("USER2_ID") != 0) {
+                friends.computeIfAbsent(userId, id -> IdSet.builder()).add(resultSet.getLong("USER2_ID"));
+            }
+        }
+        friends.forEach((userId, ids) -> userMap.get(userId).setFriends(ids.build()));
+        return new ArrayList<>(userMap.values());
+    }
+}
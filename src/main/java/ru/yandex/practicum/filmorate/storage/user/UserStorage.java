@@ -2,13 +2,26 @@ package ru.yandex.practicum.filmorate.storage.user;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface UserStorage {
     List<User> findAllUsers();
 
     User findUser(int userId);
 
+    List<User> findUsers(Collection<Long> userIds);
+
+    boolean existsById(long userId);
+
+    Set<Long> findExistingIds(Collection<Long> userIds);
+
+    default boolean existAll(Collection<Long> userIds) {
+        return findExistingIds(userIds).containsAll(userIds);
+    }
+
     User createUsers(User user);
 
     User updateUser(User newUser);
@@ -17,5 +30,9 @@ public interface UserStorage {
 
     List<User> getFriends(Long id);
 
+    Map<Long, long[]> getFriendIds(Collection<Long> userIds);
+
+    List<User> getCommonFriends(Long id, Long friendId);
+
     void removeFriends(Long userId, Long friendId);
 }
@@ -22,6 +22,7 @@ CREATE TABLE IF NOT EXISTS films (
               release_date DATE,
               duration INT NOT NULL,
               rating_mpa_id BIGINT,
+              likes_count BIGINT NOT NULL DEFAULT 0,
               PRIMARY KEY (id)
               );
 
@@ -46,6 +47,7 @@ CREATE TABLE IF NOT EXISTS films_genre (
 CREATE TABLE IF NOT EXISTS likes (
               film_id BIGINT,
               user_id BIGINT,
+              created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
               PRIMARY KEY (film_id,user_id)
               );
 
@@ -56,10 +58,18 @@ CREATE TABLE IF NOT EXISTS friends (
               PRIMARY KEY (user1_id, user2_id)
               );
 
+CREATE INDEX IF NOT EXISTS films_release_date_idx ON films (release_date);
+CREATE INDEX IF NOT EXISTS films_genre_genre_idx ON films_genre (genre_id, film_id);
+CREATE INDEX IF NOT EXISTS likes_user_idx ON likes (user_id, film_id);
+CREATE INDEX IF NOT EXISTS friends_user2_idx ON friends (user2_id, user1_id);
+
 ALTER TABLE friends ADD FOREIGN KEY (user1_id) REFERENCES users (id);
 ALTER TABLE friends ADD FOREIGN KEY (user2_id) REFERENCES users (id);
 ALTER TABLE films ADD FOREIGN KEY (rating_mpa_id) REFERENCES rating_mpa (id);
 ALTER TABLE likes ADD FOREIGN KEY (film_id) REFERENCES films (id);
 ALTER TABLE likes ADD FOREIGN KEY (user_id) REFERENCES users (id);
 ALTER TABLE films_genre ADD FOREIGN KEY (film_id) REFERENCES films (id);
-ALTER TABLE films_genre ADD FOREIGN KEY (genre_id) REFERENCES genres (id);
\ No newline at end of file
+ALTER TABLE films_genre ADD FOREIGN KEY (genre_id) REFERENCES genres (id);
+
+CREATE INDEX IF NOT EXISTS films_likes_count_idx ON films (likes_count DESC, id);
+CREATE INDEX IF NOT EXISTS likes_created_at_idx ON likes (created_at);
\ No newline at end of file
@@ -1,13 +1,25 @@
 package ru.yandex.practicum.filmorate;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.config.InstrumentedJdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 
 @SpringBootTest
 class FilmorateApplicationTests {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     @Test
     void contextLoads() {
     }
 
+    @Test
+    void jdbcTemplateIsInstrumented() {
+        assertInstanceOf(InstrumentedJdbcTemplate.class, jdbcTemplate);
+    }
+
 }
@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Нагрузочное сравнение обработки запросов на пуле платформенных потоков Tomcat и на виртуальных потоках.
+ * 1000 клиентов одновременно ставят и снимают лайки: на каждый запрос приходится несколько обращений к базе.
+ * Запуск: mvn test -Dtest=VirtualThreadsBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadsBenchmarkTest {
+    private static final int CLIENTS = 1000;
+    private static final int FILMS = 100;
+    private static final int ROUNDS = 10;
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+        System.out.printf("Платформенные потоки: %.0f запросов/с, p99 %.1f мс, ошибок %d%n",
+                platform.throughput(), platform.p99Millis(), platform.errors());
+        System.out.printf("Виртуальные потоки: %.0f запросов/с, p99 %.1f мс, ошибок %d%n",
+                virtual.throughput(), virtual.p99Millis(), virtual.errors());
+        assertEquals(0, platform.errors());
+        assertEquals(0, virtual.errors());
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark-" + virtualThreads + ";DB_CLOSE_DELAY=-1",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "filmorate.virtual-threads.acquire-timeout=PT30S",
+                        "logging.level.ru.yandex.practicum.filmorate=WARN",
+                        "logging.level.org.zalando.logbook=OFF")
+                .run()) {
+            seed(context.getBean(JdbcTemplate.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+                 HttpClient http = HttpClient.newBuilder().executor(clients).build()) {
+                load(http, clients, port, 1);
+                return load(http, clients, port, ROUNDS);
+            }
+        }
+    }
+
+    private Result load(HttpClient http, ExecutorService clients, int port, int rounds) throws Exception {
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<long[]>> futures = new ArrayList<>(CLIENTS);
+        long start = System.nanoTime();
+        for (int client = 1; client <= CLIENTS; client++) {
+            int userId = client;
+            futures.add(clients.submit(() -> {
+                long[] latencies = new long[rounds * 2];
+                for (int i = 0; i < rounds; i++) {
+                    int filmId = ThreadLocalRandom.current().nextInt(FILMS) + 1;
+                    String uri = "http://localhost:" + port + "/films/" + filmId + "/like/" + userId;
+                    latencies[i * 2] = send(http, HttpRequest.newBuilder(URI.create(uri))
+                            .PUT(HttpRequest.BodyPublishers.noBody()).build(), errors);
+                    latencies[i * 2 + 1] = send(http, HttpRequest.newBuilder(URI.create(uri))
+                            .DELETE().build(), errors);
+                }
+                return latencies;
+            }));
+        }
+        long[] all = new long[CLIENTS * rounds * 2];
+        int next = 0;
+        for (Future<long[]> future : futures) {
+            for (long latency : future.get()) {
+                all[next++] = latency;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(all);
+        return new Result(all.length / (elapsed / 1e9), all[(int) (all.length * 0.99)] / 1e6, errors.get());
+    }
+
+    private static long send(HttpClient http, HttpRequest request, AtomicInteger errors) throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 400) {
+            errors.incrementAndGet();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= CLIENTS; i++) {
+            users.add(new Object[]{i, "user" + i + "@mail.ru", "user" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, login, birthday) VALUES (?, ?, ?, '1990-01-01')", users);
+        List<Object[]> films = new ArrayList<>();
+        for (int i = 1; i <= FILMS; i++) {
+            films.add(new Object[]{i, "film" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO films (id, name, description, release_date, duration, rating_mpa_id) " +
+                "VALUES (?, ?, 'description', '2000-01-01', 100, 1)", films);
+    }
+
+    private record Result(double throughput, double p99Millis, int errors) {
+    }
+}
@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpHeaders;
+import org.zalando.logbook.HttpLogFormatter;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AsyncLogbookSinkTest {
+
+    @Test
+    void writesEntriesFromWorkerThread() throws Exception {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        HttpLogWriter writer = writer(lines, threads, null);
+        AsyncLogbookSink sink = new AsyncLogbookSink(formatter(), writer, 10, 5, new SimpleMeterRegistry());
+        sink.writeBoth(mock(Correlation.class), mock(HttpRequest.class), mock(HttpResponse.class));
+        sink.close();
+        assertEquals(List.of("request", "response"), lines);
+        assertEquals(List.of("logbook-writer", "logbook-writer"), threads);
+    }
+
+    @Test
+    void dropsEntriesWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> lines = new CopyOnWriteArrayList<>();
+        AsyncLogbookSink sink = new AsyncLogbookSink(formatter(), writer(lines, new CopyOnWriteArrayList<>(), release),
+                2, 1, new SimpleMeterRegistry());
+        for (int i = 0; i < 10; i++) {
+            sink.write(mock(Correlation.class), mock(HttpRequest.class), mock(HttpResponse.class));
+        }
+        release.countDown();
+        sink.close();
+        assertEquals(10, lines.size() + (int) sink.getDropped());
+        assertTrue(sink.getDropped() >= 7);
+    }
+
+    @Test
+    void samplingStrategyAlwaysWritesErrorsWithoutBodies() throws Exception {
+        SamplingLogbookStrategy strategy = new SamplingLogbookStrategy(0, List.of(), 1024);
+        Sink sink = mock(Sink.class);
+        HttpRequest raw = request("POST", "/films");
+        HttpRequest request = strategy.process(raw);
+        verify(raw).withoutBody();
+        HttpResponse ok = response(200);
+        HttpResponse error = response(500);
+
+        strategy.process(request, error);
+        verify(error).withoutBody();
+        strategy.write(mock(Correlation.class), request, ok, sink);
+        verify(sink, never()).writeBoth(any(), any(), any());
+        Correlation correlation = mock(Correlation.class);
+        strategy.write(correlation, request, error, sink);
+        verify(sink).writeBoth(correlation, request, error);
+    }
+
+    @Test
+    void samplingStrategyBuffersAndWritesSampledExchanges() throws Exception {
+        SamplingLogbookStrategy strategy = new SamplingLogbookStrategy(1, List.of(), 1024);
+        Sink sink = mock(Sink.class);
+        HttpRequest raw = request("POST", "/films");
+        HttpRequest request = strategy.process(raw);
+        verify(raw).withBody();
+        HttpResponse ok = response(200);
+
+        strategy.process(request, ok);
+        verify(ok).withBody();
+        Correlation correlation = mock(Correlation.class);
+        strategy.write(correlation, request, ok, sink);
+        verify(sink).writeBoth(correlation, request, ok);
+    }
+
+    @Test
+    void samplingStrategySkipsBodiesOfListedPaths() throws Exception {
+        SamplingLogbookStrategy strategy = new SamplingLogbookStrategy(1, List.of("GET /films"), 1024);
+        HttpRequest list = request("GET", "/films");
+        HttpRequest create = request("POST", "/films");
+        strategy.process(list);
+        strategy.process(create);
+        verify(list).withoutBody();
+        verify(create).withBody();
+    }
+
+    @Test
+    void attributeExtractorKeepsSamplingDecision() throws Exception {
+        HttpRequest request = new SamplingLogbookStrategy(1, List.of(), 1024).process(request("GET", "/films/1"));
+        assertEquals(true, SamplingLogbookStrategy.attributeExtractor().extract(request)
+                .get(SamplingLogbookStrategy.SAMPLED_ATTRIBUTE));
+    }
+
+    private static HttpResponse response(int status) {
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getStatus()).thenReturn(status);
+        return response;
+    }
+
+    private static HttpRequest request(String method, String path) {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getMethod()).thenReturn(method);
+        when(request.getPath()).thenReturn(path);
+        when(request.getHeaders()).thenReturn(HttpHeaders.empty());
+        return request;
+    }
+
+    private static HttpLogFormatter formatter() throws Exception {
+        HttpLogFormatter formatter = mock(HttpLogFormatter.class);
+        when(formatter.format(any(), any(HttpRequest.class))).thenReturn("request");
+        when(formatter.format(any(), any(HttpResponse.class))).thenReturn("response");
+        return formatter;
+    }
+
+    private static HttpLogWriter writer(List<String> lines, List<String> threads, CountDownLatch release) {
+        return new HttpLogWriter() {
+            @Override
+            public void write(Precorrelation precorrelation, String request) {
+                record(request);
+            }
+
+            @Override
+            public void write(Correlation correlation, String response) {
+                record(response);
+            }
+
+            private void record(String line) {
+                if (release != null) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                lines.add(line);
+                threads.add(Thread.currentThread().getName());
+            }
+        };
+    }
+}
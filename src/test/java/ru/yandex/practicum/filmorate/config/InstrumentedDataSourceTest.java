@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class InstrumentedDataSourceTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private EmbeddedDatabase database;
+    private GenreDbStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        storage = new GenreDbStorage(new InstrumentedJdbcTemplate(
+                new InstrumentedDataSource(database, registry, Duration.ZERO)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void queriesAreTimedByStorageMethod() {
+        int genres = storage.getAll().size();
+        storage.getAll();
+        storage.getById(1L);
+        Timer getAll = registry.find("filmorate.jdbc.query").tag("query", "GenreDbStorage.getAll").timer();
+        assertNotNull(getAll);
+        assertEquals(2, getAll.count());
+        assertEquals(1, registry.find("filmorate.jdbc.query").tag("query", "GenreDbStorage.getById").timer().count());
+        DistributionSummary rows = registry.find("filmorate.jdbc.rows").tag("query", "GenreDbStorage.getAll").summary();
+        assertNotNull(rows);
+        assertEquals(2L * genres, (long) rows.totalAmount());
+    }
+
+    @Test
+    void updatesRecordAffectedRows() {
+        int genres = new JdbcTemplate(new InstrumentedDataSource(database, registry, Duration.ofSeconds(1)))
+                .update("UPDATE genres SET name = name");
+        assertEquals(1, registry.find("filmorate.jdbc.query").tag("query", "other").timer().count());
+        DistributionSummary rows = registry.find("filmorate.jdbc.rows").tag("query", "other").summary();
+        assertNotNull(rows);
+        assertEquals(1, rows.count());
+        assertEquals(storage.getAll().size(), genres);
+        assertEquals(genres, (long) rows.totalAmount());
+    }
+
+    @Test
+    void rowCallbackHandlerRowsAreCounted() {
+        JdbcTemplate template = new InstrumentedJdbcTemplate(
+                new InstrumentedDataSource(database, registry, Duration.ofSeconds(1)));
+        List<Long> ids = new ArrayList<>();
+        template.query("SELECT id FROM genres WHERE id > ?", (RowCallbackHandler) rs -> ids.add(rs.getLong("id")), 0);
+        DistributionSummary rows = registry.find("filmorate.jdbc.rows").tag("query", "other").summary();
+        assertNotNull(rows);
+        assertEquals(1, rows.count());
+        assertEquals(ids.size(), (long) rows.totalAmount());
+    }
+}
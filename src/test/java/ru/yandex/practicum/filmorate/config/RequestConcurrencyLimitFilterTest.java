@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestConcurrencyLimitFilterTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RequestConcurrencyLimitFilter filter = new RequestConcurrencyLimitFilter(1, Duration.ZERO, registry);
+
+    @Test
+    void asyncRequestHoldsPermitUntilCompletion() throws Exception {
+        MockHttpServletRequest streaming = new MockHttpServletRequest("GET", "/films/stream");
+        streaming.setAsyncSupported(true);
+        filter.doFilter(streaming, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        assertEquals(0, availablePermits());
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/films"), rejected, new MockFilterChain());
+        assertEquals(503, rejected.getStatus());
+
+        ((MockAsyncContext) streaming.getAsyncContext()).complete();
+        assertEquals(1, availablePermits());
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/films"), accepted, new MockFilterChain());
+        assertEquals(200, accepted.getStatus());
+        assertEquals(1, availablePermits());
+    }
+
+    private double availablePermits() {
+        return registry.get("filmorate.requests.available-permits").gauge().value();
+    }
+}
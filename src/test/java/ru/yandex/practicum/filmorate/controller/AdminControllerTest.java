@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.service.ReferenceDataService;
+
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AdminController.class)
+class AdminControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private ReferenceDataService referenceDataService;
+
+    @Test
+    void reloadEndpointReloadsReferenceData() throws Exception {
+        // справочники уже перезагружались по ApplicationReadyEvent
+        clearInvocations(referenceDataService);
+        mockMvc.perform(post("/admin/cache/reference/reload"))
+                .andExpect(status().isNoContent());
+        verify(referenceDataService).reload();
+    }
+}
@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.config.JacksonConfig;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.FilmImportService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(FilmController.class)
+@Import({ResourceVersions.class, JacksonConfig.class})
+class FilmControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ResourceVersions versions;
+    @MockBean
+    private FilmService filmService;
+    @MockBean
+    private FilmImportService filmImportService;
+
+    @Test
+    void fullViewReturnsLikes() throws Exception {
+        when(filmService.getAllFilms(true)).thenReturn(List.of(film(IdSet.of(1, 2))));
+        mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].like.length()").value(2))
+                .andExpect(jsonPath("$[0].likesCount").value(2));
+    }
+
+    @Test
+    void summaryViewReturnsLikesCountOnly() throws Exception {
+        when(filmService.getAllFilms(false)).thenReturn(List.of(film(null)));
+        mockMvc.perform(get("/films").param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].like").doesNotExist())
+                .andExpect(jsonPath("$[0].likesCount").value(2))
+                .andExpect(jsonPath("$[0].mpa.name").value("G"));
+    }
+
+    @Test
+    void fieldsLimitFilmProperties() throws Exception {
+        when(filmService.findFilm(1, false)).thenReturn(film(null));
+        mockMvc.perform(get("/films/1").param("fields", "id,name,likesCount"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.name").value("film"))
+                .andExpect(jsonPath("$.likesCount").value(2))
+                .andExpect(jsonPath("$.description").doesNotExist())
+                .andExpect(jsonPath("$.mpa").doesNotExist());
+    }
+
+    @Test
+    void unknownFieldIsRejected() throws Exception {
+        mockMvc.perform(get("/films").param("fields", "id,rating"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void batchLikeEndpointsReturnStatusPerLike() throws Exception {
+        when(filmService.addLikes(List.of(new Like(1L, 10L), new Like(1L, 11L)))).thenReturn(List.of(
+                new LikeResult(1L, 10L, LikeResult.Status.LIKED),
+                new LikeResult(1L, 11L, LikeResult.Status.ALREADY_LIKED)));
+        mockMvc.perform(post("/films/likes:batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"filmId\":1,\"userId\":10},{\"filmId\":1,\"userId\":11}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("LIKED"))
+                .andExpect(jsonPath("$[1].status").value("ALREADY_LIKED"));
+
+        when(filmService.deleteLikes(List.of(new Like(1L, 10L)))).thenReturn(List.of(
+                new LikeResult(1L, 10L, LikeResult.Status.UNLIKED)));
+        mockMvc.perform(post("/films/likes:batchDelete").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"filmId\":1,\"userId\":10}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("UNLIKED"));
+    }
+
+    @Test
+    void matchingETagReturnsNotModifiedWithoutTouchingService() throws Exception {
+        mockMvc.perform(get("/films/1").header(HttpHeaders.IF_NONE_MATCH, versions.filmTag(1)))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/films").header(HttpHeaders.IF_NONE_MATCH, versions.filmsTag()))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(filmService);
+    }
+
+    @Test
+    void wildcardETagDoesNotHideMissingFilm() throws Exception {
+        when(filmService.findFilm(99, true)).thenThrow(new NotFoundException("Фильм с id = 99 не найден"));
+        mockMvc.perform(get("/films/99").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static Film film(IdSet likes) {
+        return Film.builder()
+                .id(1L)
+                .name("film")
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .like(likes)
+                .genres(new ArrayList<>())
+                .mpa(new Mpa(1L, "G"))
+                .likesCount(2L)
+                .build();
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendRecommendationService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(UserController.class)
+@Import(ResourceVersions.class)
+class UserControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ResourceVersions versions;
+    @MockBean
+    private UserService userService;
+    @MockBean
+    private FriendRecommendationService friendRecommendationService;
+    @MockBean
+    private FilmService filmService;
+
+    @Test
+    void matchingETagReturnsNotModifiedWithoutTouchingService() throws Exception {
+        mockMvc.perform(get("/users/1").header(HttpHeaders.IF_NONE_MATCH, versions.userTag(1)))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/users").header(HttpHeaders.IF_NONE_MATCH, versions.usersTag()))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void wildcardETagDoesNotHideMissingUser() throws Exception {
+        when(userService.findUser(99)).thenThrow(new NotFoundException("Пользователь с id = 99 не найден"));
+        mockMvc.perform(get("/users/99").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdSetTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void sortsAndRemovesDuplicates() {
+        IdSet ids = IdSet.builder().add(5).add(1).add(5).add(3_000_000_000L).add(1).build();
+        assertArrayEquals(new long[]{1, 5, 3_000_000_000L}, ids.toArray());
+        assertEquals(3, ids.size());
+        assertTrue(ids.contains(3_000_000_000L));
+        assertFalse(ids.contains(2));
+        assertSame(IdSet.empty(), IdSet.of());
+    }
+
+    @Test
+    void writesAndReadsPlainJsonArray() throws Exception {
+        assertEquals("[1,2,3]", mapper.writeValueAsString(IdSet.of(3, 1, 2)));
+        assertEquals("[]", mapper.writeValueAsString(IdSet.empty()));
+        assertEquals(IdSet.of(1, 2, 3), mapper.readValue("[3,2,1,2]", IdSet.class));
+        assertTrue(mapper.readValue("[]", IdSet.class).isEmpty());
+        assertThrows(MismatchedInputException.class, () -> mapper.readValue("[1,\"a\"]", IdSet.class));
+    }
+
+    @Test
+    void userFriendsKeepJsonShape() throws Exception {
+        User user = mapper.readValue("{\"email\":\"a@b.ru\",\"login\":\"a\",\"friends\":[2,1]}", User.class);
+        assertEquals(IdSet.of(1, 2), user.getFriends());
+        assertTrue(mapper.writeValueAsString(user).contains("\"friends\":[1,2]"));
+    }
+}
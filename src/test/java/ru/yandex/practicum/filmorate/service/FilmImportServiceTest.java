@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FilmImportServiceTest {
+    private static final String FILM = "{\"name\":\"film%d\",\"description\":\"description\"," +
+            "\"releaseDate\":\"2000-01-01\",\"duration\":100,\"mpa\":{\"id\":%d},\"genres\":[{\"id\":%d}]}";
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private final ResourceVersions versions = new ResourceVersions();
+    private FilmImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        FilmStorage filmStorage = mock(FilmStorage.class);
+        AtomicLong ids = new AtomicLong();
+        when(filmStorage.createFilms(anyList())).thenAnswer(invocation -> {
+            List<Film> films = invocation.getArgument(0);
+            batchSizes.add(films.size());
+            films.forEach(film -> film.setId(ids.incrementAndGet()));
+            return films;
+        });
+        MpaStorage mpaStorage = mock(MpaStorage.class);
+        when(mpaStorage.getById(1L)).thenReturn(new Mpa(1L, "G"));
+        GenreStorage genreStorage = mock(GenreStorage.class);
+        when(genreStorage.checkGenresExists(any())).thenReturn(true);
+        when(genreStorage.checkGenresExists(argThat(genres -> genres.get(0).getId() == 99L)))
+                .thenThrow(new NotFoundException("Жанр с id = 99 отсутствует"));
+        importService = new FilmImportService(
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                filmStorage,
+                mpaStorage,
+                genreStorage,
+                new FilmLeaderboard(new SimpleMeterRegistry()),
+                new FilmSearchIndex(),
+                versions,
+                2);
+    }
+
+    @Test
+    void importJsonArrayInBatches() throws Exception {
+        String json = "[" + String.format(FILM, 1, 1, 1) + "," + String.format(FILM, 2, 1, 2) + "," +
+                String.format(FILM, 3, 1, 3) + "]";
+        String filmsTag = versions.filmsTag();
+        String filmTag = versions.filmTag(3);
+        ImportResult result = importService.importFilms(stream(json), null);
+        assertEquals(3, result.getImported());
+        assertEquals(0, result.getFailed());
+        assertEquals(List.of(2, 1), batchSizes);
+        assertNotEquals(filmsTag, versions.filmsTag());
+        assertNotEquals(filmTag, versions.filmTag(3));
+    }
+
+    @Test
+    void importNdjsonSkipsInvalidFilms() throws Exception {
+        String ndjson = String.format(FILM, 1, 1, 1) + "\n" + String.format(FILM, 2, 5, 1) + "\n" +
+                String.format(FILM, 3, 1, 99) + "\n" + String.format(FILM, 4, 1, 1) + "\n";
+        ImportResult result = importService.importFilms(stream(ndjson), 10);
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals(2, result.getErrors().size());
+        assertEquals(List.of(2), batchSizes);
+    }
+
+    @Test
+    void unreadableFilmIsReportedAndImportContinues() throws Exception {
+        String json = "[" + String.format(FILM, 1, 1, 1) + "," +
+                "{\"name\":\"broken\",\"duration\":\"long\",\"mpa\":{\"id\":1}}," +
+                "{\"name\":\"no rating\",\"releaseDate\":\"2000-01-01\",\"duration\":100,\"mpa\":null}," +
+                String.format(FILM, 4, 1, 1) + "]";
+        ImportResult result = importService.importFilms(stream(json), 10);
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertTrue(result.getErrors().get(0).startsWith("Фильм №2"));
+        assertTrue(result.getErrors().get(1).startsWith("Фильм №3"));
+        assertFalse(result.isAborted());
+    }
+
+    @Test
+    void malformedJsonStopsImportWithReport() throws Exception {
+        String ndjson = String.format(FILM, 1, 1, 1) + "\n" + String.format(FILM, 2, 1, 1) + "\n" +
+                "{\"name\":\"film3\",,}\n" + String.format(FILM, 4, 1, 1) + "\n";
+        ImportResult result = importService.importFilms(stream(ndjson), 1);
+        assertTrue(result.isAborted());
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(List.of(1, 1), batchSizes);
+    }
+
+    private ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
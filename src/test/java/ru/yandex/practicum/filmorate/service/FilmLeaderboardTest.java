@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmLeaderboardTest {
+    private FilmLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new FilmLeaderboard(new SimpleMeterRegistry());
+        Film liked = film(2L);
+        liked.setLikesCount(1L);
+        leaderboard.load(List.of(film(1L), liked, film(3L)));
+    }
+
+    @Test
+    void topIsOrderedByLikes() {
+        leaderboard.addLike(3);
+        leaderboard.addLike(3);
+        assertEquals(List.of(3L, 2L), leaderboard.topIds(2));
+    }
+
+    @Test
+    void removeLikeMovesFilmDown() {
+        leaderboard.removeLike(2);
+        assertEquals(1, leaderboard.topIds(1).get(0));
+    }
+
+    @Test
+    void reconcileFixesDrift() {
+        leaderboard.addLike(1);
+        assertEquals(2, leaderboard.reconcile(() -> Map.of(2L, 1L, 3L, 5L)));
+        assertEquals(3, leaderboard.topIds(1).get(0));
+        assertEquals(0, leaderboard.reconcile(() -> Map.of(2L, 1L, 3L, 5L)));
+    }
+
+    @Test
+    void reconcileSkipsFilmsLikedDuringSnapshot() {
+        long drift = leaderboard.reconcile(() -> {
+            // лайк записан в базу после выборки и уже учтён в рейтинге
+            leaderboard.addLike(1);
+            return Map.of(2L, 1L);
+        });
+        assertEquals(0, drift);
+        assertEquals(1, leaderboard.likesOf(1));
+        assertEquals(1, leaderboard.reconcile(() -> Map.of(2L, 1L)));
+        assertEquals(0, leaderboard.likesOf(1));
+    }
+
+    @Test
+    void filmNeverDisappearsFromTopWhileLikesChange() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread liker = new Thread(() -> {
+            while (running.get()) {
+                leaderboard.addLike(1);
+                leaderboard.removeLike(1);
+            }
+        });
+        liker.start();
+        try {
+            for (int i = 0; i < 100_000; i++) {
+                List<Long> top = leaderboard.topIds(3);
+                assertEquals(3, top.size());
+                assertEquals(3, Set.copyOf(top).size());
+            }
+        } finally {
+            running.set(false);
+            liker.join();
+        }
+    }
+
+    private Film film(Long id) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName("film_name" + id);
+        return film;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilmLikesIndexTest {
+    private FilmLikesIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FilmLikesIndex(20, 10000);
+        index.load(Map.of(
+                1L, new long[]{1, 2, 3},
+                2L, new long[]{1, 2, 3, 4},
+                3L, new long[]{1, 5, 6, 7, 8},
+                4L, new long[]{9}));
+    }
+
+    @Test
+    void recommendsFilmsOfMostSimilarUsers() {
+        List<Long> films = index.recommend(1, 2);
+        assertEquals(List.of(4L, 5L), films);
+    }
+
+    @Test
+    void likedFilmsAreNotRecommended() {
+        index.addLike(4, 1);
+        assertTrue(!index.recommend(1, 10).contains(4L));
+    }
+
+    @Test
+    void removeLikeUpdatesIndex() {
+        index.removeLike(1, 3);
+        assertEquals(List.of(4L), index.recommend(1, 10));
+    }
+
+    @Test
+    void userWithoutLikesGetsNothing() {
+        assertTrue(index.recommend(100, 10).isEmpty());
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Время подбора рекомендаций фильмов по индексу лайков на 1 млн лайков.
+ * Запуск: mvn test -Dtest=FilmRecommendationBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FilmRecommendationBenchmarkTest {
+    private static final int USERS = 20_000;
+    private static final int FILMS = 10_000;
+    private static final int LIKES_PER_USER = 50;
+    private static final int REQUESTS = 200;
+
+    @Test
+    void recommendOnMillionLikes() {
+        Random random = new Random(42);
+        Map<Long, long[]> likes = new HashMap<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            likes.put(userId, random.longs(LIKES_PER_USER, 1, FILMS + 1).distinct().sorted().toArray());
+        }
+        FilmLikesIndex index = new FilmLikesIndex(20, 10000);
+        index.load(likes);
+
+        for (int i = 0; i < REQUESTS; i++) {
+            index.recommend(random.nextInt(USERS) + 1, 10);
+        }
+        long[] times = new long[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            long start = System.nanoTime();
+            index.recommend(random.nextInt(USERS) + 1, 10);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        double p50 = times[REQUESTS / 2] / 1_000_000.0;
+        double p99 = times[REQUESTS * 99 / 100] / 1_000_000.0;
+        System.out.printf("Рекомендации фильмов: p50 %.2f мс, p99 %.2f мс%n", p50, p99);
+        assertTrue(p50 < 50, "p50 " + p50 + " мс");
+    }
+}
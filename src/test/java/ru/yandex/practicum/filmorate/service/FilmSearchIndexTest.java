@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilmSearchIndexTest {
+    private static final Set<FilmSearchIndex.Field> ALL = EnumSet.allOf(FilmSearchIndex.Field.class);
+
+    private final Map<Long, Long> likes = Map.of(2L, 5L, 3L, 1L);
+    private FilmSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FilmSearchIndex();
+        index.put(film(1L, "Ёлки", "Новогодняя комедия"));
+        index.put(film(2L, "Новый год", "Комедия про ёлку"));
+        index.put(film(3L, "Матрица", "Фантастика про новый мир"));
+    }
+
+    @Test
+    void normalizesCaseAndYo() {
+        assertEquals(List.of("елки", "new", "year", "2024"), FilmSearchIndex.tokenize("ЁЛКИ: New-Year 2024!"));
+    }
+
+    @Test
+    void titleMatchesRankAboveDescription() {
+        assertEquals(List.of(1L, 2L), search("ёлк", ALL));
+    }
+
+    @Test
+    void popularityBreaksTies() {
+        assertEquals(List.of(2L, 3L), search("новый", ALL));
+    }
+
+    @Test
+    void allTermsMustMatchByPrefix() {
+        assertEquals(List.of(1L, 2L), search("комед ел", ALL));
+        assertTrue(search("комедия матрица", ALL).isEmpty());
+    }
+
+    @Test
+    void searchByTitleOnly() {
+        assertEquals(List.of(3L), search("матр", EnumSet.of(FilmSearchIndex.Field.TITLE)));
+        assertTrue(search("фантастика", EnumSet.of(FilmSearchIndex.Field.TITLE)).isEmpty());
+    }
+
+    @Test
+    void updateReplacesTokens() {
+        index.put(film(3L, "Матрица: перезагрузка", "Продолжение"));
+        assertTrue(search("фантастика", ALL).isEmpty());
+        assertEquals(List.of(3L), search("перезагрузка", ALL));
+        assertEquals(3, index.size());
+    }
+
+    private List<Long> search(String query, Set<FilmSearchIndex.Field> fields) {
+        return index.search(query, fields, 10, filmId -> likes.getOrDefault(filmId, 0L));
+    }
+
+    private static Film film(Long id, String name, String description) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        return film;
+    }
+}
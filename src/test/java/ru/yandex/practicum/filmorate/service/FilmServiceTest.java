@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FilmServiceTest {
+    private final FilmStorage filmStorage = mock(FilmStorage.class);
+    private final UserStorage userStorage = mock(UserStorage.class);
+    private final FilmLeaderboard leaderboard = new FilmLeaderboard(new SimpleMeterRegistry());
+    private final ResourceVersions versions = new ResourceVersions();
+    private final TrendingFilms trending = new TrendingFilms(Duration.ofHours(1), Duration.ofDays(1));
+    private FilmService service;
+
+    @BeforeEach
+    void setUp() {
+        when(filmStorage.findExistingIds(anyCollection())).thenReturn(Set.of(1L, 2L));
+        when(userStorage.findExistingIds(anyCollection())).thenReturn(Set.of(10L));
+        leaderboard.load(List.of(film(1L), film(2L)));
+        service = new FilmService(filmStorage, mock(GenreStorage.class), mock(MpaStorage.class), userStorage,
+                leaderboard, new FilmLikesIndex(20, 10000), trending,
+                new FilmSearchIndex(), Optional.empty(), versions);
+    }
+
+    @Test
+    void addLikesReportsStatusPerLike() {
+        when(filmStorage.addLikes(anyList())).thenReturn(new int[]{1, 0});
+        List<LikeResult> results = service.addLikes(List.of(new Like(1L, 10L), new Like(2L, 10L),
+                new Like(3L, 10L), new Like(1L, 11L)));
+        assertEquals(List.of(LikeResult.Status.LIKED, LikeResult.Status.ALREADY_LIKED,
+                        LikeResult.Status.FILM_NOT_FOUND, LikeResult.Status.USER_NOT_FOUND),
+                results.stream().map(LikeResult::getStatus).toList());
+        verify(filmStorage).addLikes(List.of(new Like(1L, 10L), new Like(2L, 10L)));
+        assertEquals(1, leaderboard.likesOf(1));
+        assertEquals(0, leaderboard.likesOf(2));
+    }
+
+    @Test
+    void concurrentDuplicateIsRetriedAsAlreadyLiked() {
+        when(filmStorage.addLikes(anyList()))
+                .thenThrow(new DuplicateKeyException("likes_pk"))
+                .thenReturn(new int[]{0});
+        List<LikeResult> results = service.addLikes(List.of(new Like(1L, 10L)));
+        assertEquals(LikeResult.Status.ALREADY_LIKED, results.get(0).getStatus());
+        verify(filmStorage, times(2)).addLikes(anyList());
+        assertEquals(0, leaderboard.likesOf(1));
+    }
+
+    @Test
+    void deleteLikesReportsStatusPerLike() {
+        when(filmStorage.addLikes(anyList())).thenReturn(new int[]{1});
+        service.addLikes(List.of(new Like(1L, 10L)));
+        when(filmStorage.findLikeTimes(anyList())).thenReturn(Map.of(new Like(1L, 10L), Instant.now()));
+        when(filmStorage.removeLikes(anyList())).thenReturn(new int[]{1, 0});
+        List<LikeResult> results = service.deleteLikes(List.of(new Like(1L, 10L), new Like(2L, 10L)));
+        assertEquals(List.of(LikeResult.Status.UNLIKED, LikeResult.Status.NOT_LIKED),
+                results.stream().map(LikeResult::getStatus).toList());
+        assertEquals(0, leaderboard.likesOf(1));
+    }
+
+    @Test
+    void topFilmsAreFullFilmsInLeaderboardOrder() {
+        leaderboard.addLike(2);
+        when(filmStorage.findFilmsByIds(List.of(2L, 1L), false)).thenReturn(List.of(film(1L), film(2L)));
+        List<Film> top = service.getTopFilms(10);
+        assertEquals(List.of(2L, 1L), top.stream().map(Film::getId).toList());
+        assertEquals(List.of(1L, 0L), top.stream().map(Film::getLikesCount).toList());
+    }
+
+    @Test
+    void filmETagChangesOnUpdateAndLikes() {
+        when(filmStorage.existsById(1L)).thenReturn(true);
+        when(userStorage.existsById(10L)).thenReturn(true);
+        when(filmStorage.updateFilm(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        String initial = versions.filmTag(1);
+        String initialList = versions.filmsTag();
+        String other = versions.filmTag(2);
+
+        service.updateFilm(film(1L));
+        String updated = versions.filmTag(1);
+        assertNotEquals(initial, updated);
+
+        service.addLike(10, 1);
+        String liked = versions.filmTag(1);
+        assertNotEquals(updated, liked);
+
+        when(filmStorage.addLikes(anyList())).thenReturn(new int[]{1});
+        service.addLikes(List.of(new Like(1L, 10L)));
+        String batchLiked = versions.filmTag(1);
+        assertNotEquals(liked, batchLiked);
+
+        service.onLikesFlushed(new LikesFlushedEvent(List.of(new Like(1L, 10L)), new int[]{1}, false, Map.of()));
+        assertNotEquals(batchLiked, versions.filmTag(1));
+        assertNotEquals(initialList, versions.filmsTag());
+        assertEquals(other, versions.filmTag(2));
+    }
+
+    @Test
+    void skippedBatchLikeKeepsETag() {
+        when(filmStorage.addLikes(anyList())).thenReturn(new int[]{0});
+        String initial = versions.filmTag(1);
+        service.addLikes(List.of(new Like(1L, 10L)));
+        assertEquals(initial, versions.filmTag(1));
+    }
+
+    @Test
+    void searchIndexIsLoadedWithoutLikes() {
+        when(filmStorage.findFilms(0, FilmService.MAX_PAGE_SIZE, false)).thenReturn(List.of(film(1L), film(2L)));
+        when(filmStorage.findFilms(2, FilmService.MAX_PAGE_SIZE, false)).thenReturn(List.of());
+        service.loadIndexes();
+        verify(filmStorage, times(2)).findFilms(anyLong(), anyInt(), eq(false));
+        verify(filmStorage, never()).findFilms(anyLong(), anyInt(), eq(true));
+    }
+
+    @Test
+    void trendingUsesStoredLikeTime() {
+        when(filmStorage.existsById(1L)).thenReturn(true);
+        when(userStorage.existsById(10L)).thenReturn(true);
+        when(filmStorage.addLike(1L, 10L)).thenReturn(Instant.now().minus(Duration.ofDays(2)));
+        service.addLike(10, 1);
+        assertEquals(List.of(), trending.top(Duration.ofDays(1), 10));
+
+        when(filmStorage.addLikes(anyList())).thenReturn(new int[]{1, 0});
+        when(filmStorage.findLikeTimes(anyList(), any())).thenReturn(Map.of(new Like(2L, 10L), Instant.now()));
+        service.addLikes(List.of(new Like(2L, 10L), new Like(1L, 10L)));
+        assertEquals(List.of(2L), trending.top(Duration.ofDays(1), 10));
+    }
+
+    private static Film film(long id) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName("film" + id);
+        return film;
+    }
+}
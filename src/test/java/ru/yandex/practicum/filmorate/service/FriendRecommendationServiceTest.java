@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FriendRecommendationServiceTest {
+    private final FriendGraph graph = new FriendGraph();
+    private UserStorage userStorage;
+    private FriendRecommendationService service;
+
+    @BeforeEach
+    void setUp() {
+        userStorage = mock(UserStorage.class);
+        when(userStorage.existsById(anyLong())).thenReturn(true);
+        when(userStorage.getFriendIds(anyCollection())).thenAnswer(invocation -> {
+            Map<Long, long[]> result = new HashMap<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                result.put(id, graph.friendsOf(id));
+            }
+            return result;
+        });
+        when(userStorage.findUsers(anyCollection())).thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0)
+                .stream()
+                .map(id -> User.builder().id(id).build())
+                .toList());
+        service = new FriendRecommendationService(userStorage, true, 2, 1000, 100000, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void recommendsFriendsOfFriendsByMutualCount() {
+        graph.put(1, new long[]{2, 3, 4});
+        graph.put(2, new long[]{1, 5, 6});
+        graph.put(3, new long[]{1, 5, 6, 7});
+        graph.put(4, new long[]{1, 2, 5});
+        List<User> recommended = service.recommendFriends(1, 2);
+        assertEquals(2, recommended.size());
+        assertEquals(5, recommended.get(0).getId());
+        assertEquals(6, recommended.get(1).getId());
+    }
+
+    @Test
+    void slowSecondHopReturnsPartialResultOnTimeout() {
+        long[] friends = LongStream.rangeClosed(2, 129).toArray();
+        graph.put(1, friends);
+        for (long friend : friends) {
+            graph.put(friend, new long[]{1, 500});
+        }
+        when(userStorage.getFriendIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            if (ids.contains(100L)) {
+                Thread.sleep(2000);
+            }
+            Map<Long, long[]> result = new HashMap<>();
+            for (Long id : ids) {
+                result.put(id, graph.friendsOf(id));
+            }
+            return result;
+        });
+        FriendRecommendationService limited =
+                new FriendRecommendationService(userStorage, true, 2, 1000, 100000, Duration.ofMillis(300));
+        try {
+            long start = System.nanoTime();
+            List<User> recommended = limited.recommendFriends(1, 5);
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1500);
+            assertEquals(1, recommended.size());
+            assertEquals(500, recommended.get(0).getId());
+        } finally {
+            limited.shutdown();
+        }
+    }
+
+    @Test
+    void databaseFallbackReadsChunksSequentiallyOnCallingThread() {
+        long[] friends = LongStream.rangeClosed(2, 201).toArray();
+        graph.put(1, friends);
+        for (long friend : friends) {
+            graph.put(friend, new long[]{1, 500, friend + 1000});
+        }
+        Thread caller = Thread.currentThread();
+        AtomicInteger chunks = new AtomicInteger();
+        when(userStorage.getFriendIds(anyCollection())).thenAnswer(invocation -> {
+            assertSame(caller, Thread.currentThread());
+            chunks.incrementAndGet();
+            Map<Long, long[]> result = new HashMap<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                result.put(id, graph.friendsOf(id));
+            }
+            return result;
+        });
+        FriendRecommendationService sequential =
+                new FriendRecommendationService(userStorage, false, 2, 1000, 100000, Duration.ofSeconds(5));
+        List<User> recommended = sequential.recommendFriends(1, 2);
+        assertEquals(500, recommended.get(0).getId());
+        assertEquals(2, recommended.size());
+        assertEquals(1 + 4, chunks.get());
+        sequential.shutdown();
+    }
+
+    @Test
+    void noFriendsNoRecommendations() {
+        assertEquals(0, service.recommendFriends(10, 5).size());
+    }
+}
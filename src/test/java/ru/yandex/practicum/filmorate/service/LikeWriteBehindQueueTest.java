@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikeWriteBehindQueueTest {
+    private FilmStorage filmStorage;
+    private ApplicationEventPublisher publisher;
+    private LikeWriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = mock(FilmStorage.class);
+        when(filmStorage.addLikes(anyList())).thenAnswer(invocation -> new int[invocation.<List<?>>getArgument(0).size()]);
+        when(filmStorage.removeLikes(anyList())).thenAnswer(invocation -> new int[invocation.<List<?>>getArgument(0).size()]);
+        publisher = mock(ApplicationEventPublisher.class);
+        queue = new LikeWriteBehindQueue(filmStorage, publisher, new SimpleMeterRegistry(), 3, 100, 2,
+                Duration.ofHours(1));
+        queue.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.stop();
+    }
+
+    @Test
+    void lastOperationOnPairWins() {
+        queue.like(1, 1);
+        queue.unlike(1, 1);
+        queue.like(2, 1);
+        queue.flush();
+        verify(filmStorage).addLikes(List.of(new Like(2L, 1L)));
+        verify(filmStorage).removeLikes(List.of(new Like(1L, 1L)));
+        verify(publisher, times(2)).publishEvent(any(LikesFlushedEvent.class));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void fullQueueIsFlushedByCaller() {
+        queue.like(1, 1);
+        queue.like(1, 2);
+        queue.like(1, 3);
+        verify(filmStorage, never()).addLikes(anyList());
+        queue.like(1, 4);
+        verify(filmStorage).addLikes(List.of(new Like(1L, 1L), new Like(1L, 2L), new Like(1L, 3L)));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    void failedBatchIsRetried() {
+        when(filmStorage.addLikes(anyList())).thenThrow(new IllegalStateException("нет соединения"))
+                .thenReturn(new int[]{1});
+        queue.like(1, 1);
+        try {
+            queue.flush();
+        } catch (IllegalStateException ignored) {
+            // повторится при следующей записи
+        }
+        queue.flush();
+        verify(filmStorage, times(2)).addLikes(List.of(new Like(1L, 1L)));
+    }
+
+    @Test
+    void batchIsDroppedAfterMaxRetries() {
+        when(filmStorage.addLikes(anyList())).thenThrow(new IllegalStateException("нет соединения"));
+        queue.like(1, 1);
+        for (int i = 0; i < 3; i++) {
+            try {
+                queue.flush();
+            } catch (IllegalStateException ignored) {
+                // ожидаемый сбой записи
+            }
+        }
+        verify(filmStorage, times(2)).addLikes(List.of(new Like(1L, 1L)));
+    }
+
+    @Test
+    void failedLikesCountAgainstCapacity() {
+        when(filmStorage.addLikes(anyList())).thenThrow(new IllegalStateException("нет соединения"))
+                .thenAnswer(invocation -> new int[invocation.<List<?>>getArgument(0).size()]);
+        queue.like(1, 1);
+        queue.like(1, 2);
+        try {
+            queue.flush();
+        } catch (IllegalStateException ignored) {
+            // две пары остались на повтор
+        }
+        queue.like(1, 3);
+        verify(filmStorage, times(1)).addLikes(anyList());
+        queue.like(1, 4);
+        verify(filmStorage).addLikes(List.of(new Like(1L, 1L), new Like(1L, 2L), new Like(1L, 3L)));
+    }
+
+    @Test
+    void listenerFailureDoesNotSkipUnlikes() {
+        doThrow(new IllegalStateException("слушатель упал")).when(publisher).publishEvent(any(LikesFlushedEvent.class));
+        queue.like(1, 1);
+        queue.unlike(2, 1);
+        queue.flush();
+        verify(filmStorage).removeLikes(List.of(new Like(2L, 1L)));
+        verify(publisher, times(2)).publishEvent(any(LikesFlushedEvent.class));
+    }
+
+    @Test
+    void stopFlushesPendingLikes() {
+        queue.like(5, 5);
+        queue.stop();
+        verify(filmStorage).addLikes(List.of(new Like(5L, 5L)));
+        assertThrows(IllegalStateException.class, () -> queue.like(6, 6));
+    }
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrendingFilmsTest {
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:30:00Z"));
+    private TrendingFilms trending;
+
+    @BeforeEach
+    void setUp() {
+        trending = new TrendingFilms(Duration.ofHours(1), Duration.ofHours(48), clock);
+    }
+
+    @Test
+    void ranksFilmsByLikesInWindow() {
+        trending.addLike(1);
+        trending.addLike(2);
+        trending.addLike(2);
+        assertEquals(List.of(2L, 1L), trending.top(Duration.ofHours(24), 10));
+    }
+
+    @Test
+    void oldLikesLeaveWindow() {
+        trending.addLike(1);
+        trending.addLike(1);
+        clock.advance(Duration.ofHours(3));
+        trending.addLike(2);
+        assertEquals(List.of(2L), trending.top(Duration.ofHours(2), 10));
+        assertEquals(List.of(1L, 2L), trending.top(Duration.ofHours(24), 10));
+    }
+
+    @Test
+    void rollClearsStaleBuckets() {
+        trending.addLike(1);
+        clock.advance(Duration.ofHours(49));
+        trending.roll();
+        assertTrue(trending.top(Duration.ofHours(48), 10).isEmpty());
+    }
+
+    @Test
+    void likesOlderThanMaxWindowAreIgnored() {
+        trending.addLike(1, clock.instant().minus(Duration.ofDays(3)));
+        assertTrue(trending.top(Duration.ofHours(48), 10).isEmpty());
+    }
+
+    @Test
+    void removeLikeTakesLikeFromItsOwnBucket() {
+        Instant oldLike = clock.instant();
+        trending.addLike(1);
+        clock.advance(Duration.ofHours(2));
+        trending.addLike(1);
+        trending.removeLike(1, oldLike);
+        assertEquals(List.of(1L), trending.top(Duration.ofHours(1), 10));
+        trending.removeLike(1, clock.instant());
+        assertTrue(trending.top(Duration.ofHours(24), 10).isEmpty());
+    }
+
+    @Test
+    void removeLikeOutsideWindowIsIgnored() {
+        trending.addLike(1);
+        trending.removeLike(1, clock.instant().minus(Duration.ofDays(3)));
+        assertEquals(List.of(1L), trending.top(Duration.ofHours(1), 10));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+    private final UserStorage userStorage = mock(UserStorage.class);
+    private final ResourceVersions versions = new ResourceVersions();
+    private final UserService service = new UserService(userStorage, versions);
+
+    @BeforeEach
+    void setUp() {
+        when(userStorage.existsById(anyLong())).thenReturn(true);
+        when(userStorage.existAll(anyCollection())).thenReturn(true);
+    }
+
+    @Test
+    void userETagChangesOnUpdateAndFriendChanges() {
+        String initial = versions.userTag(1);
+        User user = new User();
+        user.setId(1L);
+        service.updateUser(user);
+        String updated = versions.userTag(1);
+        assertNotEquals(initial, updated);
+
+        service.addFriend(1, 2);
+        String befriended = versions.userTag(1);
+        assertNotEquals(updated, befriended);
+
+        service.deleteFriend(1, 2);
+        assertNotEquals(befriended, versions.userTag(1));
+        assertNotEquals(initial, versions.usersTag());
+    }
+
+    @Test
+    void otherUsersKeepTheirETag() {
+        String other = versions.userTag(2);
+        service.addFriend(1, 2);
+        assertEquals(other, versions.userTag(2));
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = {CachingFilmStorage.class})
+@ComponentScan(basePackages = {"ru.yandex.practicum.filmorate.storage.film"})
+class CachingFilmStorageTest {
+    private final CachingFilmStorage storage;
+    private final FilmDbStorage filmDbStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    @Sql(scripts = {"/test-get-users.sql"})
+    void findFilmIsCachedUntilLike() {
+        storage.invalidateAll();
+        long hits = storage.getHits();
+        long misses = storage.getMisses();
+        Film first = storage.findFilm(1);
+        first.setName("changed");
+        first.getGenres().clear();
+        Film second = storage.findFilm(1);
+        assertNotSame(first, second);
+        assertEquals("film_name1", second.getName());
+        assertEquals(hits + 1, storage.getHits());
+        assertEquals(misses + 1, storage.getMisses());
+
+        storage.addLike(1L, 1L);
+        assertTrue(storage.findFilm(1).getLike().contains(1));
+        assertEquals(misses + 2, storage.getMisses());
+    }
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    @Sql(scripts = {"/test-get-users.sql"})
+    void findFilmWithoutLikesUsesCacheOrSkipsLikes() {
+        storage.invalidateAll();
+        storage.addLike(1L, 1L);
+        long misses = storage.getMisses();
+        Film uncached = storage.findFilm(1, false);
+        assertNull(uncached.getLike());
+        assertEquals(1, storage.size());
+        assertNull(storage.findFilm(1, false).getLike());
+        assertEquals(misses + 1, storage.getMisses());
+
+        assertEquals(1, storage.findFilm(1).getLike().size());
+        assertEquals(misses + 2, storage.getMisses());
+        Film cached = storage.findFilm(1, false);
+        assertNull(cached.getLike());
+        assertEquals(1, cached.getLikesCount());
+        assertEquals(misses + 2, storage.getMisses());
+        assertEquals(1, storage.findFilm(1).getLike().size());
+    }
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    void findFilmsByIdsWithoutLikesFillsCache() {
+        storage.invalidateAll();
+        storage.findFilm(1);
+        long misses = storage.getMisses();
+        List<Film> films = storage.findFilmsByIds(List.of(1L, 2L), false);
+        assertEquals(Set.of(1L, 2L), films.stream().map(Film::getId).collect(Collectors.toSet()));
+        assertTrue(films.stream().allMatch(film -> film.getLike() == null));
+        assertEquals(misses + 1, storage.getMisses());
+        assertEquals(2, storage.size());
+        storage.findFilmsByIds(List.of(1L, 2L), false);
+        assertEquals(misses + 1, storage.getMisses());
+        assertEquals(0, storage.findFilm(1).getLike().size());
+        assertEquals(misses + 1, storage.getMisses());
+    }
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    @Sql(scripts = {"/test-get-users.sql"})
+    void reconcileInvalidatesCachedLikesCount() {
+        storage.invalidateAll();
+        storage.addLike(1L, 1L);
+        jdbcTemplate.update("UPDATE films SET likes_count = 5 WHERE id = 1");
+        assertEquals(5, storage.findFilm(1).getLikesCount());
+        assertEquals(1, storage.reconcileLikesCount());
+        assertEquals(1, storage.findFilm(1).getLikesCount());
+    }
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    void existsById() {
+        assertTrue(storage.existsById(2));
+        assertFalse(storage.existsById(100));
+    }
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    void evictsLeastRecentlyReadFilmsWhenFull() {
+        CachingFilmStorage small = new CachingFilmStorage(filmDbStorage, 2, Duration.ofMinutes(10));
+        small.findFilm(1);
+        small.findFilm(2);
+        small.findFilm(1);
+        small.findFilm(3);
+        assertEquals(2, small.size());
+        assertEquals(1, small.getEvictions());
+        assertTrue(small.existsById(2));
+        long misses = small.getMisses();
+        small.findFilm(1);
+        assertEquals(misses, small.getMisses());
+        small.findFilm(2);
+        assertEquals(misses + 1, small.getMisses());
+    }
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    void expiredFilmIsReloaded() {
+        CachingFilmStorage expiring = new CachingFilmStorage(filmDbStorage, 10, Duration.ZERO);
+        expiring.findFilm(1);
+        expiring.findFilm(1);
+        assertEquals(2, expiring.getMisses());
+        assertEquals(1, expiring.getEvictions());
+    }
+}
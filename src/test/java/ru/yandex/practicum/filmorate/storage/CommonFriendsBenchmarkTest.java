@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение получения общих друзей через findUser для каждого друга и одним запросом.
+ * Запуск: mvn test -Dtest=CommonFriendsBenchmarkTest -Dbenchmark=true
+ */
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = {UserDbStorage.class})
+@ComponentScan(basePackages = {"ru.yandex.practicum.filmorate.storage.user"})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CommonFriendsBenchmarkTest {
+    private static final int FRIENDS = 5000;
+    private static final int USERS = FRIENDS * 3 / 2 + 2;
+    private static final int ROUNDS = 5;
+
+    private final UserDbStorage storage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareLoopWithSetQuery() {
+        seed();
+        long loopNanos = Long.MAX_VALUE;
+        long queryNanos = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            User first = storage.findUser(1);
+            User second = storage.findUser(2);
+            List<User> loop = first.getFriends().stream()
+                    .filter(second.getFriends()::contains)
+                    .mapToObj(id -> storage.findUser((int) id))
+                    .toList();
+            loopNanos = Math.min(loopNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            List<User> common = storage.getCommonFriends(1L, 2L);
+            queryNanos = Math.min(queryNanos, System.nanoTime() - start);
+            assertEquals(loop.size(), common.size());
+        }
+        System.out.printf("Общих друзей: %d; цикл с findUser: %.1f мс; один запрос: %.1f мс%n",
+                FRIENDS / 2, loopNanos / 1e6, queryNanos / 1e6);
+    }
+
+    private void seed() {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            users.add(new Object[]{i, "user" + i + "@mail.ru", "user" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, login, birthday) VALUES (?, ?, ?, '1990-01-01')", users);
+        List<Object[]> friends = new ArrayList<>();
+        for (int i = 0; i < FRIENDS; i++) {
+            friends.add(new Object[]{1, 3 + i});
+            friends.add(new Object[]{2, 3 + FRIENDS / 2 + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO friends (user1_id, user2_id, status) VALUES (?, ?, true)", friends);
+    }
+}
@@ -6,16 +6,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.jdbc.Sql;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,20 +35,22 @@ import static org.junit.jupiter.api.Assertions.*;
 @ComponentScan(basePackages = {"ru.yandex.practicum.filmorate.storage.film"})
 class FilmDbStorageTest {
     private final FilmDbStorage storage;
+    private final JdbcTemplate jdbcTemplate;
 
     @Test
     void createFilm() {
-        storage.createFilm(new Film(
+        Film created = storage.createFilm(new Film(
                 1L,
                 "updateName",
                 "description",
                 LocalDate.of(1991, 01, 12),
                 200,
-                new HashSet<>(),
+                IdSet.empty(),
                 new ArrayList<>(),
-                new Mpa(1L, "G")
+                new Mpa(1L, "G"),
+                null
         ));
-        Film film = storage.findFilm(1);
+        Film film = storage.findFilm(created.getId().intValue());
         assertThat(film).hasFieldOrPropertyWithValue("name", "updateName");
         assertThat(film).hasFieldOrPropertyWithValue("description", "description");
         assertThat(film).hasFieldOrProperty("releaseDate");
@@ -58,7 +68,8 @@ class FilmDbStorageTest {
                 200,
                 null,
                 null,
-                new Mpa(1L, "G")
+                new Mpa(1L, "G"),
+                null
         ));
         Film film = storage.findFilm(1);
         assertThat(film).hasFieldOrPropertyWithValue("name", "updateName");
@@ -99,9 +110,51 @@ class FilmDbStorageTest {
     @Test
     @Sql(scripts = {"/test-get-films.sql"})
     @Sql(scripts = {"/test-get-users.sql"})
-    void addLikeTest() {
+    void getFilmWithGenresAndLikes() {
+        jdbcTemplate.update("INSERT INTO films_genre (film_id, genre_id) VALUES (1, 2), (1, 1)");
         storage.addLike(1L, 1L);
+        storage.addLike(1L, 2L);
+        Film film = storage.findFilm(1);
+        assertEquals(2, film.getGenres().size());
+        assertEquals(1, film.getGenres().get(0).getId());
+        assertEquals(2, film.getGenres().get(1).getId());
+        assertEquals(2, film.getLike().size());
+        assertEquals("G", film.getMpa().getName());
+    }
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    @Sql(scripts = {"/test-get-users.sql"})
+    void findFilmsWithoutLikes() {
+        storage.addLike(1L, 1L);
+        storage.addLike(1L, 2L);
+        List<Film> films = storage.findFilms(0, 2, false);
+        assertNull(films.get(0).getLike());
+        assertEquals(2, films.get(0).getLikesCount());
+        assertEquals(0, films.get(1).getLikesCount());
+        assertEquals(2, storage.allFilms(true).get(0).getLike().size());
+    }
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    void findFilmsAfterId() {
+        List<Film> firstPage = storage.findFilms(0, 2);
+        assertEquals(2, firstPage.size());
+        assertEquals(1, firstPage.get(0).getId());
+        assertEquals(2, firstPage.get(1).getId());
+        List<Film> secondPage = storage.findFilms(firstPage.get(1).getId(), 2);
+        assertEquals(1, secondPage.size());
+        assertEquals(3, secondPage.get(0).getId());
+        assertTrue(storage.findFilms(3, 2).isEmpty());
+    }
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    @Sql(scripts = {"/test-get-users.sql"})
+    void addLikeTest() {
+        Instant likedAt = storage.addLike(1L, 1L);
         assertTrue(storage.findFilm(1).getLike().contains(1));
+        assertEquals(Map.of(new Like(1L, 1L), likedAt), storage.findLikeTimes(List.of(new Like(1L, 1L))));
     }
 
     @Test
@@ -109,8 +162,14 @@ class FilmDbStorageTest {
     @Sql(scripts = {"/test-get-users.sql"})
     void removeLike() {
         storage.addLike(1L, 1L);
-        storage.removeLike(1L, 1L);
+        Instant likedAt = Instant.parse("2024-01-01T10:00:00Z");
+        jdbcTemplate.update("UPDATE likes SET created_at = ? WHERE film_id = 1 AND user_id = 1",
+                Timestamp.from(likedAt));
+        assertEquals(Map.of(new Like(1L, 1L), likedAt),
+                storage.findLikeTimes(List.of(new Like(1L, 1L), new Like(1L, 2L))));
+        assertEquals(Optional.of(likedAt), storage.removeLike(1L, 1L));
         assertFalse(storage.findFilm(1).getLike().contains(1));
+        assertTrue(storage.removeLike(1L, 1L).isEmpty());
     }
 
     @Test
@@ -125,6 +184,96 @@ class FilmDbStorageTest {
         storage.addLike(1L, 1L);
         List<Film> testList = storage.getTopFilms(3);
         assertEquals(3, testList.get(0).getId());
+        assertEquals(List.of(3L, 2L, 1L), testList.stream().map(Film::getLikesCount).toList());
         assertEquals(3, testList.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    @Sql(scripts = {"/test-get-users.sql"})
+    void getTopFilmsByGenreAndYear() {
+        jdbcTemplate.update("INSERT INTO films_genre (film_id, genre_id) VALUES (2, 1), (3, 1), (3, 2)");
+        jdbcTemplate.update("UPDATE films SET release_date = ? WHERE id = 3", LocalDate.of(2000, 5, 1));
+        storage.addLike(3L, 1L);
+        storage.addLike(3L, 2L);
+        storage.addLike(2L, 1L);
+        List<Film> byGenre = storage.getTopFilms(10, 1L, null);
+        assertEquals(List.of(3L, 2L), byGenre.stream().map(Film::getId).toList());
+        List<Film> byYear = storage.getTopFilms(10, null, 2000);
+        assertEquals(List.of(3L), byYear.stream().map(Film::getId).toList());
+        assertEquals(2, byYear.get(0).getGenres().size());
+        assertTrue(storage.getTopFilms(10, 2L, LocalDate.now().getYear()).isEmpty());
+    }
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    @Sql(scripts = {"/test-get-users.sql"})
+    void reconcileLikesCount() {
+        storage.addLike(2L, 1L);
+        storage.addLike(2L, 2L);
+        assertEquals(0, storage.reconcileLikesCount());
+        storage.removeLike(2L, 1L);
+        storage.removeLike(2L, 1L);
+        assertEquals(0, storage.reconcileLikesCount());
+        assertEquals(2, storage.getTopFilms(1).get(0).getId());
+
+        jdbcTemplate.update("UPDATE films SET likes_count = 7 WHERE id = 2");
+        jdbcTemplate.update("UPDATE films SET likes_count = 3 WHERE id = 3");
+        assertEquals(2, storage.reconcileLikesCount());
+        assertEquals(1L, storage.findFilm(2, false).getLikesCount());
+        assertEquals(0L, storage.findFilm(3, false).getLikesCount());
+        assertEquals(0, storage.reconcileLikesCount());
+    }
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    @Sql(scripts = {"/test-get-users.sql"})
+    void forEachLikeSince() {
+        storage.addLike(1L, 1L);
+        storage.addLike(2L, 1L);
+        jdbcTemplate.update("UPDATE likes SET created_at = ? WHERE film_id = 2",
+                Timestamp.from(Instant.now().minus(Duration.ofDays(2))));
+        List<Long> films = new ArrayList<>();
+        storage.forEachLikeSince(Instant.now().minus(Duration.ofDays(1)), (filmId, likedAt) -> films.add(filmId));
+        assertEquals(List.of(1L), films);
+    }
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    @Sql(scripts = {"/test-get-users.sql"})
+    void addAndRemoveLikesInBatch() {
+        storage.addLike(1L, 1L);
+        int[] inserted = storage.addLikes(List.of(new Like(1L, 1L), new Like(1L, 2L), new Like(2L, 2L), new Like(1L, 2L)));
+        assertArrayEquals(new int[]{0, 1, 1, 0}, inserted);
+        assertEquals(2, storage.findFilm(1).getLike().size());
+        assertEquals(1, storage.getTopFilms(1).get(0).getId());
+
+        int[] deleted = storage.removeLikes(List.of(new Like(1L, 1L), new Like(3L, 1L)));
+        assertArrayEquals(new int[]{1, 0}, deleted);
+        assertEquals(0, storage.reconcileLikesCount());
+    }
+
+    @Test
+    void createFilmsInBatch() {
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            films.add(new Film(
+                    null,
+                    "batch" + i,
+                    "description",
+                    LocalDate.of(2000, 1, 1),
+                    100,
+                    IdSet.empty(),
+                    List.of(new Genre((long) i + 1, null)),
+                    new Mpa(1L, "G"),
+                    null
+            ));
+        }
+        storage.createFilms(films);
+        for (Film film : films) {
+            Film saved = storage.findFilm(film.getId().intValue());
+            assertEquals(film.getName(), saved.getName());
+            assertEquals(1, saved.getGenres().size());
+        }
+    }
+}
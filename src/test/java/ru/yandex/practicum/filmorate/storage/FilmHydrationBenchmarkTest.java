@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение старой выборки фильмов одним JOIN с пакетной сборкой в FilmDbStorage.
+ * Запуск: mvn test -Dtest=FilmHydrationBenchmarkTest -Dbenchmark=true
+ */
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = {FilmDbStorage.class})
+@ComponentScan(basePackages = {"ru.yandex.practicum.filmorate.storage.film"})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FilmHydrationBenchmarkTest {
+    private static final int FILMS = 200;
+    private static final int USERS = 2000;
+    private static final int POPULAR_FILMS = 20;
+    private static final int ROUNDS = 10;
+
+    private final FilmDbStorage storage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareJoinWithBatchHydration() {
+        seed();
+        String joinQuery = "SELECT f.id, f.name, l.user_id, mr.name AS mpa_name, g.name AS genre_name " +
+                "FROM films AS f " +
+                "LEFT JOIN likes AS l ON (f.id = l.film_id) " +
+                "LEFT JOIN rating_mpa AS mr ON (f.rating_mpa_id = mr.id) " +
+                "LEFT JOIN films_genre AS fg ON (f.id = fg.film_id) " +
+                "LEFT JOIN genres AS g ON (fg.genre_id = g.id)";
+        long joinRows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (" + joinQuery + ")", Long.class);
+        long batchRows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films", Long.class) +
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films_genre", Long.class) +
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes", Long.class);
+
+        long joinNanos = Long.MAX_VALUE;
+        long batchNanos = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            Map<Long, Set<Long>> likesByFilm = new HashMap<>();
+            Map<Long, List<String>> genresByFilm = new HashMap<>();
+            jdbcTemplate.query(joinQuery, (RowCallbackHandler) rs -> {
+                long filmId = rs.getLong("id");
+                likesByFilm.computeIfAbsent(filmId, id -> new HashSet<>()).add(rs.getLong("user_id"));
+                List<String> genres = genresByFilm.computeIfAbsent(filmId, id -> new ArrayList<>());
+                if (!genres.contains(rs.getString("genre_name"))) {
+                    genres.add(rs.getString("genre_name"));
+                }
+            });
+            joinNanos = Math.min(joinNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            List<Film> films = storage.allFilms();
+            batchNanos = Math.min(batchNanos, System.nanoTime() - start);
+            assertEquals(FILMS, films.size());
+            assertEquals(likesByFilm.size(), films.size());
+        }
+        System.out.printf("JOIN: %d строк, %.1f мс; пакетная сборка: %d строк, %.1f мс%n",
+                joinRows, joinNanos / 1e6, batchRows, batchNanos / 1e6);
+    }
+
+    private void seed() {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            users.add(new Object[]{i, "user" + i + "@mail.ru", "user" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, login, birthday) VALUES (?, ?, ?, '1990-01-01')", users);
+        List<Object[]> films = new ArrayList<>();
+        List<Object[]> genres = new ArrayList<>();
+        List<Object[]> likes = new ArrayList<>();
+        for (int i = 1; i <= FILMS; i++) {
+            films.add(new Object[]{i, "film" + i});
+            for (int genre = 1; genre <= 3; genre++) {
+                genres.add(new Object[]{i, genre});
+            }
+            int likesCount = i <= POPULAR_FILMS ? USERS : 10;
+            for (int user = 1; user <= likesCount; user++) {
+                likes.add(new Object[]{i, user});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO films (id, name, description, release_date, duration, rating_mpa_id) " +
+                "VALUES (?, ?, 'description', '2000-01-01', 100, 1)", films);
+        jdbcTemplate.batchUpdate("INSERT INTO films_genre (film_id, genre_id) VALUES (?, ?)", genres);
+        jdbcTemplate.batchUpdate("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", likes);
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение импорта фильмов по одному и пачками.
+ * Запуск: mvn test -Dtest=FilmImportBenchmarkTest -Dbenchmark=true
+ */
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = {FilmDbStorage.class})
+@ComponentScan(basePackages = {"ru.yandex.practicum.filmorate.storage.film"})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FilmImportBenchmarkTest {
+    private static final int FILMS = 20000;
+    private static final int BATCH_SIZE = 500;
+
+    private final FilmDbStorage storage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareSingleAndBatchInserts() {
+        long start = System.nanoTime();
+        for (int i = 0; i < FILMS; i++) {
+            storage.createFilm(film(i));
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<Film> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < FILMS; i++) {
+            batch.add(film(i));
+            if (batch.size() == BATCH_SIZE) {
+                storage.createFilms(batch);
+                batch.clear();
+            }
+        }
+        storage.createFilms(batch);
+        long batchNanos = System.nanoTime() - start;
+
+        assertEquals(2L * FILMS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films", Long.class));
+        System.out.printf("По одному: %.0f фильмов/с; пачками по %d: %.0f фильмов/с%n",
+                FILMS / (singleNanos / 1e9), BATCH_SIZE, FILMS / (batchNanos / 1e9));
+    }
+
+    private Film film(int i) {
+        return new Film(null, "film" + i, "description", LocalDate.of(2000, 1, 1), 100, IdSet.empty(),
+                List.of(new Genre((long) i % 6 + 1, null)), new Mpa(1L, "G"), null);
+    }
+}
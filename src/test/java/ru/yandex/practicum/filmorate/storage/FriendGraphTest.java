@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class FriendGraphTest {
+
+    @Test
+    void addAndRemoveKeepFriendsSorted() {
+        FriendGraph graph = new FriendGraph();
+        graph.addFriend(1, 5);
+        graph.addFriend(1, 2);
+        graph.addFriend(1, 9);
+        graph.addFriend(1, 2);
+        assertArrayEquals(new long[]{2, 5, 9}, graph.friendsOf(1));
+        graph.removeFriend(1, 5);
+        graph.removeFriend(1, 7);
+        assertArrayEquals(new long[]{2, 9}, graph.friendsOf(1));
+        assertArrayEquals(new long[0], graph.friendsOf(2));
+    }
+
+    @Test
+    void commonFriends() {
+        FriendGraph graph = new FriendGraph();
+        graph.put(1, new long[]{2, 3, 5, 8});
+        graph.put(2, new long[]{1, 3, 4, 8, 9});
+        assertArrayEquals(new long[]{3, 8}, graph.commonFriends(1, 2));
+        assertArrayEquals(new long[0], graph.commonFriends(1, 3));
+    }
+}
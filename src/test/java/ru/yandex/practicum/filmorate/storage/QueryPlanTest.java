@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.Nullable;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmRowMapper;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет по EXPLAIN, что запросы с фильтрами, в том числе построенные FilmDbStorage, используют индексы из schema.sql, а не полный просмотр таблиц.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class QueryPlanTest {
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+
+    @Test
+    void popularFilmsByGenreUseGenreIndex() {
+        assertThat(explainTopFilms(1L, null))
+                .contains("FILMS_GENRE_GENRE_IDX")
+                .doesNotContain("TABLESCAN");
+    }
+
+    @Test
+    void popularFilmsByGenreAndYearUseGenreIndex() {
+        assertThat(explainTopFilms(1L, 2000))
+                .contains("FILMS_GENRE_GENRE_IDX")
+                .doesNotContain("TABLESCAN");
+    }
+
+    @Test
+    void popularFilmsByYearUseReleaseDateIndex() {
+        assertThat(explainTopFilms(null, 2000))
+                .contains("FILMS_RELEASE_DATE_IDX")
+                .doesNotContain("TABLESCAN");
+    }
+
+    @Test
+    void likesByUserUseUserIndex() {
+        assertThat(explain("SELECT film_id FROM likes WHERE user_id = 1"))
+                .contains("LIKES_USER_IDX");
+    }
+
+    @Test
+    void friendsByUser2UseUser2Index() {
+        assertThat(explain("SELECT user1_id FROM friends WHERE user2_id = 1"))
+                .contains("FRIENDS_USER2_IDX");
+    }
+
+    /**
+     * Перехватывает запрос, который строит FilmDbStorage, и выполняет EXPLAIN для него с теми же параметрами.
+     */
+    private String explainTopFilms(Long genreId, Integer year) {
+        List<String> plans = new ArrayList<>();
+        JdbcTemplate explaining = new JdbcTemplate(dataSource) {
+            @Override
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper, @Nullable Object... args) {
+                plans.add(queryForObject("EXPLAIN " + sql, String.class, args).toUpperCase());
+                return super.query(sql, rowMapper, args);
+            }
+        };
+        new FilmDbStorage(explaining, new FilmRowMapper()).getTopFilms(10, genreId, year);
+        assertThat(plans).hasSize(1);
+        return plans.get(0);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class).toUpperCase();
+    }
+}
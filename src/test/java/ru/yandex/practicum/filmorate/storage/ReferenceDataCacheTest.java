@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.service.ReferenceDataService;
+import ru.yandex.practicum.filmorate.service.ResourceVersions;
+import ru.yandex.practicum.filmorate.storage.genre.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.CachedMpaStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReferenceDataCacheTest {
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourceVersions versions = new ResourceVersions();
+    private GenreDbStorage genreDbStorage;
+    private MpaDbStorage mpaDbStorage;
+    private CachedGenreStorage genreStorage;
+    private CachedMpaStorage mpaStorage;
+    private ReferenceDataService referenceDataService;
+
+    @BeforeEach
+    void setUp() {
+        genreDbStorage = spy(new GenreDbStorage(jdbcTemplate));
+        mpaDbStorage = spy(new MpaDbStorage(jdbcTemplate));
+        genreStorage = new CachedGenreStorage(genreDbStorage);
+        mpaStorage = new CachedMpaStorage(mpaDbStorage);
+        referenceDataService = new ReferenceDataService(genreStorage, mpaStorage, versions);
+    }
+
+    @Test
+    void cachedStoragesReadDatabaseOnce() {
+        int genres = genreStorage.getAll().size();
+        assertTrue(genres > 0);
+        assertEquals(genres, genreStorage.getAll().size());
+        assertEquals(1L, genreStorage.getById(1L).getId());
+        assertTrue(genreStorage.checkGenresExists(List.of(new Genre(1L, null))));
+        assertThrows(NotFoundException.class, () -> genreStorage.getById(999L));
+        verify(genreDbStorage, times(1)).getAll();
+
+        assertEquals(1L, mpaStorage.getById(1L).getId());
+        assertEquals(mpaStorage.getAll().size(), mpaStorage.getAll().size());
+        assertNull(mpaStorage.getById(999L));
+        verify(mpaDbStorage, times(1)).getAll();
+    }
+
+    @Test
+    void reloadPicksUpChangedRows() {
+        String genreName = genreStorage.getById(1L).getName();
+        String mpaName = mpaStorage.getById(1L).getName();
+        String tag = versions.referenceTag("genres");
+        jdbcTemplate.update("UPDATE genres SET name = 'Новый жанр' WHERE id = 1");
+        jdbcTemplate.update("UPDATE rating_mpa SET name = 'X' WHERE id = 1");
+        assertEquals(genreName, genreStorage.getById(1L).getName());
+        assertEquals(mpaName, mpaStorage.getById(1L).getName());
+
+        referenceDataService.reload();
+        assertEquals("Новый жанр", genreStorage.getById(1L).getName());
+        assertEquals("X", mpaStorage.getById(1L).getName());
+        assertNotEquals(tag, versions.referenceTag("genres"));
+        verify(genreDbStorage, times(2)).getAll();
+        verify(mpaDbStorage, times(2)).getAll();
+    }
+}
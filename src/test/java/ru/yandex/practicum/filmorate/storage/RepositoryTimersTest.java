@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.config.MetricsConfig;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = {FilmDbStorage.class, UserDbStorage.class, RepositoryTimersTest.Metrics.class})
+@ComponentScan(basePackages = {"ru.yandex.practicum.filmorate.storage.film", "ru.yandex.practicum.filmorate.storage.user"})
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+@Import(MetricsConfig.class)
+class RepositoryTimersTest {
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final MeterRegistry registry;
+
+    @Test
+    @Sql(scripts = {"/test-get-films.sql"})
+    @Sql(scripts = {"/test-get-users.sql"})
+    void repositoryMethodsAreTimed() {
+        filmStorage.findFilm(1);
+        filmStorage.findFilm(2);
+        userStorage.existsById(1);
+        assertEquals(2, timer("film", "findFilm").count());
+        assertEquals(1, timer("user", "existsById").count());
+    }
+
+    private Timer timer(String repository, String method) {
+        Timer timer = registry.find("filmorate.repository")
+                .tag("repository", repository)
+                .tag("method", method)
+                .timer();
+        assertNotNull(timer, repository + "." + method);
+        return timer;
+    }
+
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -9,13 +9,17 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.jdbc.Sql;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
 import java.time.LocalDate;
 import java.util.List;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @JdbcTest
 @AutoConfigureTestDatabase
@@ -110,4 +114,60 @@ class UserDbStorageTest {
         List<User> newTestList = storage.getFriends(1L);
         assertEquals(1, newTestList.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    @Sql(scripts = {"/clear_all.sql", "/test-get-users.sql"})
+    void loadFriendGraphBuildsNewGraph() {
+        storage.addFriends(1L, 2L);
+        storage.addFriends(1L, 3L);
+        FriendGraph first = storage.loadFriendGraph();
+        storage.removeFriends(1L, 2L);
+        FriendGraph second = storage.loadFriendGraph();
+        assertArrayEquals(new long[]{2, 3}, first.friendsOf(1));
+        assertArrayEquals(new long[]{3}, second.friendsOf(1));
+    }
+
+    @Test
+    @Sql(scripts = {"/clear_all.sql", "/test-get-users.sql"})
+    void findUsersCollectsFriends() {
+        storage.addFriends(1L, 2L);
+        storage.addFriends(1L, 3L);
+        storage.addFriends(2L, 3L);
+        assertEquals(2, storage.findUser(1).getFriends().size());
+        List<User> users = storage.findAllUsers();
+        assertEquals(3, users.size());
+        assertEquals(2, users.get(0).getFriends().size());
+        assertEquals(1, users.get(1).getFriends().size());
+        assertEquals(0, users.get(2).getFriends().size());
+    }
+
+    @Test
+    @Sql(scripts = {"/clear_all.sql", "/test-get-users.sql"})
+    void existsById() {
+        assertTrue(storage.existsById(1));
+        assertFalse(storage.existsById(100));
+        assertTrue(storage.existAll(List.of(1L, 2L, 3L)));
+        assertFalse(storage.existAll(List.of(1L, 100L)));
+    }
+
+    @Test
+    @Sql(scripts = {"/clear_all.sql", "/test-get-users.sql"})
+    void getCommonFriends() {
+        storage.addFriends(1L, 3L);
+        storage.addFriends(2L, 3L);
+        storage.addFriends(1L, 2L);
+        List<User> common = storage.getCommonFriends(1L, 2L);
+        assertEquals(1, common.size());
+        assertEquals(3, common.get(0).getId());
+        assertTrue(storage.getCommonFriends(1L, 3L).isEmpty());
+    }
+
+    @Test
+    @Sql(scripts = {"/clear_all.sql", "/test-get-users.sql"})
+    void findUsersByIds() {
+        List<User> users = storage.findUsers(List.of(3L, 1L, 100L));
+        assertEquals(2, users.size());
+        assertEquals(1, users.get(0).getId());
+        assertEquals(3, users.get(1).getId());
+    }
+}